@@ -1,5 +1,5 @@
 import React, { useState, useEffect, useRef, useCallback } from 'react';
-import api from '../services/api';
+import api, { postEventStream } from '../services/api';
 import { Send, Bot, PenTool, Trash2, Paperclip, X, Edit2, Check } from 'lucide-react';
 import SatchyAvatar from '../assets/Satchy.png';
 import { ToastContainer, type ToastMessage } from './Toast';
@@ -18,19 +18,32 @@ interface ChatMessage {
     id?: number; // Add id for messages from the backend
 }
 
+const toFormData = (message: string, image: File) => {
+    const form = new FormData();
+    form.append('message', message);
+    form.append('image', image);
+    return form;
+};
+
 const ChatWidget = () => {
     const [sessions, setSessions] = useState<ChatSession[]>([]);
     const [currentSessionId, setCurrentSessionId] = useState<number | null>(null);
     const [messages, setMessages] = useState<ChatMessage[]>([]);
+    // Cursor for the messages before the loaded ones (null = start of the session)
+    const [olderCursor, setOlderCursor] = useState<string | null>(null);
     const [input, setInput] = useState('');
     const [loading, setLoading] = useState(false);
     const [executedIndices, setExecutedIndices] = useState<Set<number>>(new Set());
     const [selectedImage, setSelectedImage] = useState<string | null>(null);
+    // The file itself is uploaded; the data URL above is only the preview
+    const [selectedFile, setSelectedFile] = useState<File | null>(null);
     const [isEditingTitle, setIsEditingTitle] = useState(false);
     const [editedTitle, setEditedTitle] = useState("");
     const fileInputRef = useRef<HTMLInputElement>(null);
 
     const messagesEndRef = useRef<HTMLDivElement>(null);
+    // Aborting the reply stream makes the server save what it has so far
+    const streamRef = useRef<AbortController | null>(null);
     const [toasts, setToasts] = useState<ToastMessage[]>([]);
     const [showClearModal, setShowClearModal] = useState(false);
 
@@ -46,8 +59,9 @@ const ChatWidget = () => {
     // Define fetchHistory with useCallback to be stable for dependencies
     const fetchHistory = useCallback(async () => {
         try {
-            const res = await api.get('/chat/history');
-            setSessions(res.data);
+            // Only the most recent chats are offered in the picker
+            const res = await api.get('/chat/history', { params: { size: 50 } });
+            setSessions(res.data.sessions);
             // Only defaults if we have no session. 
             // Note: capturing currentSessionId in closure might be stale if not in deps,
             // but for "initial load" logic it's fine. 
@@ -67,9 +81,9 @@ const ChatWidget = () => {
             // But actually fetchHistory just updates sessions. 
             // We need to set initial session if none.
             try {
-                 const res = await api.get('/chat/history');
-                 if (res.data.length > 0) {
-                     setCurrentSessionId(prev => prev || res.data[0].id);
+                 const res = await api.get('/chat/history', { params: { size: 1 } });
+                 if (res.data.sessions.length > 0) {
+                     setCurrentSessionId(prev => prev || res.data.sessions[0].id);
                  }
             } catch {
                 // Ignore initial fetch error
@@ -88,6 +102,9 @@ const ChatWidget = () => {
         scrollToBottom();
     }, [messages]);
 
+    // Closing the widget mid-reply stops the stream; the server keeps the partial reply
+    useEffect(() => () => streamRef.current?.abort(), []);
+
     const handleSaveTitle = async () => {
         if (!currentSessionId || !editedTitle.trim()) return;
 
@@ -104,6 +121,7 @@ const ChatWidget = () => {
     const handleFileSelect = (e: React.ChangeEvent<HTMLInputElement>) => {
         const file = e.target.files?.[0];
         if (file) {
+            setSelectedFile(file);
             const reader = new FileReader();
             reader.onloadend = () => {
                 setSelectedImage(reader.result as string);
@@ -114,16 +132,30 @@ const ChatWidget = () => {
 
     const clearImage = () => {
         setSelectedImage(null);
+        setSelectedFile(null);
         if (fileInputRef.current) fileInputRef.current.value = '';
     };
 
     const fetchMessages = async (id: number) => {
         try {
-            const res = await api.get(`/chat/${id}`);
-            const sorted = res.data.messages.sort((a: ChatMessage & {timestamp: string}, b: ChatMessage & {timestamp: string}) => 
-                new Date(a.timestamp).getTime() - new Date(b.timestamp).getTime()
-            );
-            setMessages(sorted);
+            // Latest page, already oldest first
+            const res = await api.get(`/chat/${id}/messages`);
+            setMessages(res.data.messages);
+            setOlderCursor(res.data.nextCursor);
+        } catch (err) {
+            console.error(err);
+        }
+    };
+
+    const loadOlderMessages = async () => {
+        if (!currentSessionId || !olderCursor) return;
+        try {
+            const res = await api.get(`/chat/${currentSessionId}/messages`, { params: { cursor: olderCursor } });
+            const older: ChatMessage[] = res.data.messages;
+            setMessages(prev => [...older, ...prev]);
+            // Executed markers are kept by message position
+            setExecutedIndices(prev => new Set([...prev].map(i => i + older.length)));
+            setOlderCursor(res.data.nextCursor);
         } catch (err) {
             console.error(err);
         }
@@ -135,6 +167,7 @@ const ChatWidget = () => {
             setSessions([res.data, ...sessions]);
             setCurrentSessionId(res.data.id);
             setMessages([]);
+            setOlderCursor(null);
         } catch (err) {
             console.error(err);
         }
@@ -182,35 +215,39 @@ const ChatWidget = () => {
         };
         setMessages(prev => [...prev, userMsg]);
         const msgToSend = input;
-        const imgToSend = selectedImage;
+        const fileToSend = selectedFile;
 
         setInput('');
         clearImage();
         setLoading(true);
 
+        // The reply is shown as it streams in, growing the last message
+        const updateReply = (update: (reply: ChatMessage) => ChatMessage) =>
+            setMessages(prev => [...prev.slice(0, -1), update(prev[prev.length - 1])]);
+
+        const controller = new AbortController();
+        streamRef.current = controller;
         try {
             if (sessionId) {
-                // Determine payload. Backend expects { message: string, image?: string, mimeType?: string }
-                const payload: any = { message: msgToSend };
-                if (imgToSend) {
-                    const matches = imgToSend.match(/^data:(.+);base64,(.+)$/);
-                    if (matches && matches.length === 3) {
-                        payload.mimeType = matches[1];
-                        payload.image = matches[2]; // Raw base64
-                    } else {
-                        // Fallback if no prefix (unlikely with FileReader)
-                        payload.image = imgToSend;
-                    }
-                }
-                
-                const res = await api.post(`/chat/${sessionId}/send`, payload);
-                const aiMsg: ChatMessage = { role: 'ASSISTANT', content: res.data };
-                setMessages(prev => [...prev, aiMsg]);
+                setMessages(prev => [...prev, { role: 'ASSISTANT', content: '' }]);
+                // Images go as multipart so the raw file is streamed; the server downscales it
+                const messageId = await postEventStream(
+                    `/chat/${sessionId}/stream`,
+                    fileToSend ? toFormData(msgToSend, fileToSend) : { message: msgToSend },
+                    token => updateReply(reply => ({ ...reply, content: reply.content + token })),
+                    controller.signal,
+                );
+                // The id is what lets a proposal in the reply be executed (once)
+                updateReply(reply => ({ ...reply, id: messageId ? Number(messageId) : undefined }));
                 fetchHistory(); // Update titles
             }
         } catch (err) {
-            console.error(err);
+            if (!controller.signal.aborted) {
+                console.error(err);
+                addToast('Satchy lost the thread, reopen the chat to see the reply.', 'error');
+            }
         } finally {
+            streamRef.current = null;
             setLoading(false);
         }
     };
@@ -224,18 +261,34 @@ const ChatWidget = () => {
 
     const handleAction = async (proposal: any, index: number, msgId?: number) => {
         if (executedIndices.has(index)) return;
+        if (msgId == null) {
+            addToast("This proposal can't be applied, reopen the chat and try again.", 'error');
+            return;
+        }
 
         try {
-            await api.post('/chat/execute-action', { 
+            const res = await api.post('/chat/execute-action', { 
                 proposal: JSON.stringify(proposal),
                 messageId: msgId 
             });
+            const results: { error?: string | null }[] = res.data.items || [];
+            const failed = results.filter(r => r.error).length;
             
             // Dispatch event to refresh inventory
             window.dispatchEvent(new Event('inventory-updated'));
             
+            if (failed === results.length && results.length > 0) {
+                addToast("None of the items could be applied.", 'error');
+                return;
+            }
             setExecutedIndices(prev => new Set(prev).add(index));
-            addToast("Action executed successfully!", 'success');
+            if (res.data.alreadyExecuted) {
+                addToast("This action was already executed.", 'info');
+            } else if (failed > 0) {
+                addToast(`Action executed, but ${failed} of ${results.length} items failed.`, 'error');
+            } else {
+                addToast("Action executed successfully!", 'success');
+            }
         } catch (error) {
             console.error(error);
             addToast("Failed to execute action. Check console.", 'error');
@@ -328,6 +381,11 @@ const ChatWidget = () => {
                         <p className="text-sm">Wanna cook something? Throw a party? Just ask me and Ill help you!</p>
                     </div>
                 )}
+                {olderCursor && (
+                    <button onClick={loadOlderMessages} className="w-full text-xs text-leather hover:text-leather-dark underline">
+                        Load earlier messages
+                    </button>
+                )}
                 {messages.map((msg, idx) => {
                     // Extract action if present
                     let actionData = null;
@@ -397,7 +455,7 @@ const ChatWidget = () => {
                                                     ? 'bg-ink/10 text-ink/50 cursor-not-allowed'
                                                     : 'bg-leather text-gold hover:bg-leather-light'
                                             }`}
-                                            onClick={() => handleAction(actionData, idx, (msg as any).id)} // Pass msg.id if available
+                                            onClick={() => handleAction(actionData, idx, msg.id)}
                                             disabled={executedIndices.has(idx) || isPersistedExecuted}
                                         >
                                             {executedIndices.has(idx) || isPersistedExecuted ? 'Action Confirmed' : (actionData.action === 'REDUCE_QUANTITY' ? 'Confirm Reduce' : 'Confirm Add')}
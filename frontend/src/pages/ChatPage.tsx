@@ -6,9 +6,12 @@ interface ChatSession {
     id: number;
     title: string;
     createdAt: string;
+    lastMessagePreview?: string | null;
+    messageCount?: number;
 }
 
 interface ChatMessage {
+    id?: number;
     role: 'USER' | 'ASSISTANT';
     content: string;
 }
@@ -17,6 +20,9 @@ const ChatPage = () => {
     const [sessions, setSessions] = useState<ChatSession[]>([]);
     const [currentSessionId, setCurrentSessionId] = useState<number | null>(null);
     const [messages, setMessages] = useState<ChatMessage[]>([]);
+    // Keyset cursors for the next page of sessions / the messages before the loaded ones
+    const [sessionsCursor, setSessionsCursor] = useState<string | null>(null);
+    const [olderCursor, setOlderCursor] = useState<string | null>(null);
     const [input, setInput] = useState('');
     const [loading, setLoading] = useState(false);
     const [sidebarOpen, setSidebarOpen] = useState(true);
@@ -39,7 +45,19 @@ const ChatPage = () => {
     const fetchHistory = async () => {
         try {
             const res = await api.get('/chat/history');
-            setSessions(res.data);
+            setSessions(res.data.sessions);
+            setSessionsCursor(res.data.nextCursor);
+        } catch (err) {
+            console.error(err);
+        }
+    };
+
+    const loadMoreSessions = async () => {
+        if (!sessionsCursor) return;
+        try {
+            const res = await api.get('/chat/history', { params: { cursor: sessionsCursor } });
+            setSessions(prev => [...prev, ...res.data.sessions]);
+            setSessionsCursor(res.data.nextCursor);
         } catch (err) {
             console.error(err);
         }
@@ -47,12 +65,21 @@ const ChatPage = () => {
 
     const fetchMessages = async (id: number) => {
         try {
-            const res = await api.get(`/chat/${id}`);
-            // Backend returns Session object with nested messages
-            const sorted = res.data.messages.sort((a: any, b: any) => 
-                new Date(a.timestamp).getTime() - new Date(b.timestamp).getTime()
-            );
-            setMessages(sorted);
+            // Latest page of the session, oldest first
+            const res = await api.get(`/chat/${id}/messages`);
+            setMessages(res.data.messages);
+            setOlderCursor(res.data.nextCursor);
+        } catch (err) {
+            console.error(err);
+        }
+    };
+
+    const loadOlderMessages = async () => {
+        if (!currentSessionId || !olderCursor) return;
+        try {
+            const res = await api.get(`/chat/${currentSessionId}/messages`, { params: { cursor: olderCursor } });
+            setMessages(prev => [...res.data.messages, ...prev]);
+            setOlderCursor(res.data.nextCursor);
         } catch (err) {
             console.error(err);
         }
@@ -64,6 +91,7 @@ const ChatPage = () => {
             setSessions([res.data, ...sessions]); // Prepend new session
             setCurrentSessionId(res.data.id);
             setMessages([]);
+            setOlderCursor(null);
         } catch (err) {
             console.error(err);
         }
@@ -103,8 +131,7 @@ const ChatPage = () => {
 
         try {
             const res = await api.post(`/chat/${sessionId}/send`, { message: text });
-            // API returns just string response currently
-            const aiMsg: ChatMessage = { role: 'ASSISTANT', content: res.data };
+            const aiMsg: ChatMessage = { role: 'ASSISTANT', content: res.data.content, id: res.data.messageId };
             setMessages(prev => [...prev, aiMsg]);
             
             // Refresh history to update titles
@@ -116,10 +143,18 @@ const ChatPage = () => {
         }
     };
 
-    const handleAction = async (proposalJson: string) => {
+    const handleAction = async (proposalJson: string, messageId?: number) => {
+        // The server applies a proposal at most once per message, so it needs the id
+        if (messageId == null) {
+            alert("This decree cannot be enacted, reopen the chat and try again.");
+            return;
+        }
         try {
-            await api.post('/chat/execute-action', { proposal: proposalJson });
-            alert("The inventory has been updated according to your command."); 
+            const res = await api.post('/chat/execute-action', { proposal: proposalJson, messageId });
+            const failed = (res.data.items || []).filter((r: { error?: string | null }) => r.error).length;
+            alert(failed > 0
+                ? `The inventory has been updated, but ${failed} item(s) could not be applied.`
+                : "The inventory has been updated according to your command."); 
         } catch (err) {
             alert("The spell fizzled (Action failed).");
             console.error(err);
@@ -168,7 +203,7 @@ const ChatPage = () => {
                                 </ul>
                              </div>
                              <button 
-                                onClick={() => handleAction(jsonPart)}
+                                onClick={() => handleAction(jsonPart, msg.id)}
                                 className="w-full bg-leather text-gold font-heading py-2 rounded shadow border border-gold hover:bg-leather-light transition-colors"
                              >
                                 Confirm & Update
@@ -224,6 +259,9 @@ const ChatPage = () => {
                                 className={`p-3 rounded border cursor-pointer transition-all group relative ${currentSessionId === s.id ? 'bg-leather text-parchment border-leather shadow-md' : 'bg-parchment-dark border-transparent hover:border-leather/30'}`}
                              >
                                  <p className="font-body text-lg truncate pr-6">{s.title}</p>
+                                 {s.lastMessagePreview && (
+                                    <p className="text-sm opacity-70 truncate">{s.lastMessagePreview}</p>
+                                 )}
                                  <div className="text-xs opacity-60 flex justify-between mt-1">
                                     <span>{new Date(s.createdAt).toLocaleDateString()}</span>
                                  </div>
@@ -236,6 +274,11 @@ const ChatPage = () => {
                                  </button>
                              </div>
                          ))}
+                         {sessionsCursor && (
+                             <button onClick={loadMoreSessions} className="w-full text-sm text-leather hover:text-leather-dark underline py-2">
+                                 Older chronicles
+                             </button>
+                         )}
                      </div>
                 </div>
 
@@ -250,6 +293,11 @@ const ChatPage = () => {
                                 <p className="text-xl">The oracle is listening...</p>
                             </div>
                          )}
+                         {olderCursor && (
+                             <button onClick={loadOlderMessages} className="w-full text-sm text-leather hover:text-leather-dark underline">
+                                 Load earlier messages
+                             </button>
+                         )}
                          {messages.map((msg, idx) => (
                              <div key={idx} className={`flex ${msg.role === 'USER' ? 'justify-end' : 'justify-start'}`}>
                                  <div className={`max-w-[85%] relative p-4 rounded-lg shadow-sm ${msg.role === 'USER' ? 'bg-leather text-parchment rounded-br-none' : 'bg-parchment-dark border border-ink/10 text-ink rounded-bl-none'}`}>
@@ -5,16 +5,14 @@ import { Scroll, Users, Search, PlusCircle, UserPlus, Trash2 } from 'lucide-reac
 import { ToastContainer, type ToastMessage } from '../components/Toast';
 import { Modal } from '../components/Modal';
 
-interface AppUser {
-    id: number;
-    username: string;
-}
-
+// GET /groups/summary: counts instead of the full member list
 interface Group {
     id: number;
     groupName: string;
     joinCode: string;
-    members?: AppUser[]; 
+    memberCount: number;
+    itemCount: number;
+    expiringSoonCount: number;
 }
 
 const GroupDashboard = () => {
@@ -37,7 +35,7 @@ const GroupDashboard = () => {
 
     const fetchGroups = async () => {
         try {
-            const response = await api.get('/groups');
+            const response = await api.get('/groups/summary');
             setGroups(response.data);
         } catch (error) {
             console.error('Failed to fetch groups', error);
@@ -112,11 +110,11 @@ const GroupDashboard = () => {
                              fetchGroups(); 
                          } else {
                              try {
-                                 const res = await api.get(`/items/search?q=${q}`);
+                                 const res = await api.get('/items/search', { params: { q, size: 100 } });
                                  const foundItems = res.data;
-                                 const allGroupsRes = await api.get('/groups');
+                                 const allGroupsRes = await api.get('/groups/summary');
                                  const allGroups = allGroupsRes.data;
-                                 const matchingGroupIds = new Set(foundItems.map((item: any) => item.inventoryGroup?.id));
+                                 const matchingGroupIds = new Set(foundItems.map((item: any) => item.groupId));
                                  const filtered = allGroups.filter((g: Group) => 
                                      g.groupName.toLowerCase().includes(q.toLowerCase()) || 
                                      matchingGroupIds.has(g.id)
@@ -177,10 +175,15 @@ const GroupDashboard = () => {
                         <div className="flex items-center gap-2 mb-3 text-sm text-ink/70">
                             <Users className="w-4 h-4" />
                             <span>
-                                {group.members && group.members.length > 0 
-                                    ? `${group.members.length} Member${group.members.length > 1 ? 's' : ''}`
+                                {group.memberCount > 0
+                                    ? `${group.memberCount} Member${group.memberCount > 1 ? 's' : ''}`
                                     : 'No members'}
                             </span>
+                            <span className="text-ink/40">·</span>
+                            <span>{group.itemCount} Item{group.itemCount !== 1 ? 's' : ''}</span>
+                            {group.expiringSoonCount > 0 && (
+                                <span className="text-rpg-red">({group.expiringSoonCount} expiring soon)</span>
+                            )}
                         </div>
 
                         <div className="mt-2 flex items-center gap-2 text-xs text-leather font-mono bg-leather/5 px-2 py-1 rounded inline-block border border-leather/10">
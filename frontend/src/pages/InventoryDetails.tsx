@@ -5,19 +5,21 @@ import { ArrowLeft, Trash2, Edit2, Plus, X, Heart, Shield } from 'lucide-react';
 import { Modal } from '../components/Modal';
 import { ToastContainer, type ToastMessage } from '../components/Toast';
 
-interface Category {
-    id: number;
-    name: string;
-}
-
 interface Item {
     id: number;
     name: string;
-    category: Category;
     quantity: number;
-    expiryDate: string;
     type?: string;
+    categoryId: number;
+    categoryName: string;
+    expiryDate?: string;
     condition?: string;
+    version: number;
+}
+
+interface ItemPage {
+    items: Item[];
+    nextCursor: string | null;
 }
 
 const InventoryDetails = () => {
@@ -65,8 +67,17 @@ const InventoryDetails = () => {
 
     const fetchItems = useCallback(async () => {
         try {
-            const response = await api.get(`/items/group/${groupId}`);
-            setItems(response.data);
+            // Listing is keyset-paginated; follow the cursor to load the whole group
+            const all: Item[] = [];
+            let cursor: string | null = null;
+            do {
+                const response: { data: ItemPage } = await api.get(`/items/group/${groupId}`, {
+                    params: { size: 200, cursor: cursor ?? undefined }
+                });
+                all.push(...response.data.items);
+                cursor = response.data.nextCursor;
+            } while (cursor);
+            setItems(all);
         } catch (error) {
             console.error('Failed to fetch items', error);
         }
@@ -109,7 +120,7 @@ const InventoryDetails = () => {
     const openEditModal = (item: Item) => {
         setEditingItem(item);
         setNewItemName(item.name);
-        setNewItemCategory(item.category?.name || '');
+        setNewItemCategory(item.categoryName || '');
         setNewItemQuantity(item.quantity);
         setNewItemType(item.type || 'Food');
         setShowEditModal(true);
@@ -119,6 +130,7 @@ const InventoryDetails = () => {
         e.preventDefault();
         try {
             if (!editingItem) return;
+            // The version read with the item, so someone else's change isn't overwritten
             await api.put(`/items/${editingItem.id}`, {
                 name: newItemName,
                 category: newItemCategory,
@@ -126,12 +138,18 @@ const InventoryDetails = () => {
                 type: newItemType,
                 expiryDate: newItemExpiry || null,
                 condition: newItemCondition || null
-            });
+            }, { headers: { 'If-Match': `"${editingItem.version}"` } });
             setShowEditModal(false);
             setEditingItem(null);
             fetchItems();
-        } catch (error) {
+        } catch (error: any) {
             console.error('Failed to update item', error);
+            if (error.response?.status === 409) {
+                addToast('Someone else changed this item. Reloaded it, please edit again.', 'error');
+                setShowEditModal(false);
+                setEditingItem(null);
+                fetchItems();
+            }
         }
     };
 
@@ -166,13 +184,13 @@ const InventoryDetails = () => {
 
     const filteredItems = items.filter(item => {
         const matchesSearch = item.name.toLowerCase().includes(search.toLowerCase()) ||
-            (item.category && item.category.name.toLowerCase().includes(search.toLowerCase()));
-        const matchesCategory = categoryFilter === 'All' || (item.category && item.category.name === categoryFilter);
+            (item.categoryName && item.categoryName.toLowerCase().includes(search.toLowerCase()));
+        const matchesCategory = categoryFilter === 'All' || item.categoryName === categoryFilter;
         const matchesType = typeFilter === 'All' || (item.type && item.type === typeFilter);
         return matchesSearch && matchesCategory && matchesType;
     });
 
-    const uniqueCategories = Array.from(new Set(items.map(i => i.category?.name).filter(Boolean)));
+    const uniqueCategories = Array.from(new Set(items.map(i => i.categoryName).filter(Boolean)));
 
     return (
         <div className="font-body text-ink pb-8">
@@ -272,7 +290,7 @@ const InventoryDetails = () => {
                                 </div>
                             </div>
                             <div className="flex flex-wrap gap-1 mt-2 z-10 relative">
-                                <span className="text-[10px] uppercase tracking-wider bg-leather-dark text-gold px-1.5 py-0.5 rounded shadow-sm">{item.category?.name}</span>
+                                <span className="text-[10px] uppercase tracking-wider bg-leather-dark text-gold px-1.5 py-0.5 rounded shadow-sm">{item.categoryName}</span>
                                 {item.expiryDate && <span className="text-[10px] uppercase tracking-wider bg-rpg-red text-white px-1.5 py-0.5 rounded shadow-sm">Exp: {item.expiryDate}</span>}
                             </div>
                         </div>
@@ -20,3 +20,63 @@ export const setAuthToken = (token: string | null) => {
         delete api.defaults.headers.common['Authorization'];
     }
 };
+
+/**
+ * POSTs to a server-sent events endpoint (EventSource can only GET) and calls
+ * onToken with the data of each `token` event as it arrives. Resolves with
+ * the data of the `done` event. body is JSON-encoded unless it is FormData.
+ */
+export const postEventStream = async (
+    path: string,
+    body: FormData | object,
+    onToken: (token: string) => void,
+    signal?: AbortSignal,
+): Promise<string> => {
+    const headers: Record<string, string> = { Accept: 'text/event-stream' };
+    const auth = api.defaults.headers.common['Authorization'];
+    if (auth) {
+        headers['Authorization'] = String(auth);
+    }
+    if (!(body instanceof FormData)) {
+        headers['Content-Type'] = 'application/json';
+    }
+    const res = await fetch(`${api.defaults.baseURL}${path}`, {
+        method: 'POST',
+        headers,
+        body: body instanceof FormData ? body : JSON.stringify(body),
+        signal,
+    });
+    if (!res.ok || !res.body) {
+        throw new Error(`Stream request failed with status ${res.status}`);
+    }
+
+    const reader = res.body.pipeThrough(new TextDecoderStream()).getReader();
+    let buffer = '';
+    while (true) {
+        const { value, done } = await reader.read();
+        if (done) {
+            throw new Error('Stream ended before it was done');
+        }
+        buffer += value;
+        // Events end with a blank line; a partial one waits for the next chunk
+        let end;
+        while ((end = buffer.indexOf('\n\n')) >= 0) {
+            const lines = buffer.slice(0, end).split('\n');
+            buffer = buffer.slice(end + 2);
+            let event = 'message';
+            const data: string[] = [];
+            for (const line of lines) {
+                // Spring writes "data:" with no space after it, so a token's
+                // own leading space must be kept
+                if (line.startsWith('event:')) event = line.slice(6).trim();
+                else if (line.startsWith('data:')) data.push(line.slice(5));
+            }
+            if (event === 'token') {
+                onToken(data.join('\n'));
+            } else if (event === 'done') {
+                await reader.cancel();
+                return data.join('\n');
+            }
+        }
+    }
+};
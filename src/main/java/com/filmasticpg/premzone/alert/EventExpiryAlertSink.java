@@ -0,0 +1,25 @@
+package com.filmasticpg.premzone.alert;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Default sink: republishes each alert as an application event, so any
+ * component can react to it with an @EventListener.
+ */
+@Component
+@ConditionalOnProperty(name = "premzone.alerts.sink", havingValue = "events", matchIfMissing = true)
+public class EventExpiryAlertSink implements ExpiryAlertSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public EventExpiryAlertSink(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void publish(ExpiryAlert alert) {
+        eventPublisher.publishEvent(alert);
+    }
+}
@@ -0,0 +1,15 @@
+package com.filmasticpg.premzone.alert;
+
+import java.time.LocalDate;
+
+/**
+ * An item crossing one of the expiry thresholds: it expires within the
+ * configured number of days (EXPIRING_SOON) or its expiry date has passed
+ * (EXPIRED).
+ */
+public record ExpiryAlert(Kind kind, Long itemId, Long groupId, String itemName, LocalDate expiryDate) {
+
+    public enum Kind {
+        EXPIRING_SOON, EXPIRED
+    }
+}
@@ -0,0 +1,231 @@
+package com.filmasticpg.premzone.alert;
+
+import com.filmasticpg.premzone.item.ExpirableItem;
+import com.filmasticpg.premzone.item.InventoryItem;
+import com.filmasticpg.premzone.item.InventoryItemRepository;
+import com.filmasticpg.premzone.item.ItemContextRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Emits {@link ExpiryAlert}s when items cross the "expires in N days" and
+ * "expired" thresholds.
+ *
+ * Alerts due in the next horizonDays days sit in a timing wheel with one
+ * slot per day. Each daily tick fires the slot for the day that just started
+ * and then loads only the items whose alerts fall on the day entering the
+ * far end of the wheel (two point lookups on the expiry index), so the table
+ * is never rescanned and memory grows with the horizon, not the inventory.
+ * {@link com.filmasticpg.premzone.item.InventoryItemService} keeps the wheel
+ * in step with item changes after they commit.
+ */
+@Component
+public class ExpiryAlertScheduler {
+
+    private record Tracked(Long itemId, Long groupId, String name, LocalDate expiryDate) {
+    }
+
+    private final InventoryItemRepository inventoryItemRepository;
+    private final ExpiryAlertSink sink;
+    private final Clock clock;
+    private final int soonDays;
+    private final int horizonDays;
+
+    // slots.get(day % slots.size()): IDs of items with an alert due that day
+    private final List<Set<Long>> slots;
+    private final Map<Long, Tracked> tracked = new HashMap<>();
+    // Alerts up to and including this epoch day have fired; the wheel holds
+    // days currentDay + 1 .. currentDay + horizonDays
+    private long currentDay;
+    private boolean started;
+
+    @Autowired
+    public ExpiryAlertScheduler(InventoryItemRepository inventoryItemRepository,
+            ExpiryAlertSink sink,
+            @Value("${premzone.alerts.expiring-days:3}") int soonDays,
+            @Value("${premzone.alerts.horizon-days:30}") int horizonDays) {
+        this(inventoryItemRepository, sink, soonDays, horizonDays, Clock.systemDefaultZone());
+    }
+
+    ExpiryAlertScheduler(InventoryItemRepository inventoryItemRepository, ExpiryAlertSink sink, int soonDays,
+            int horizonDays, Clock clock) {
+        if (horizonDays < 1)
+            throw new IllegalArgumentException("Alert horizon must be at least one day");
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.sink = sink;
+        this.soonDays = soonDays;
+        this.horizonDays = horizonDays;
+        this.clock = clock;
+        this.slots = new ArrayList<>(horizonDays + 1);
+        for (int i = 0; i <= horizonDays; i++) {
+            slots.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Fills the wheel and fires today's alerts. A restart on the same day may
+     * repeat those.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        currentDay = today() - 1;
+        // Every expiry date with an alert in (currentDay, currentDay + horizonDays]
+        LocalDate from = LocalDate.ofEpochDay(currentDay);
+        LocalDate to = LocalDate.ofEpochDay(currentDay + horizonDays + soonDays);
+        for (ItemContextRow row : inventoryItemRepository.findAllExpiringBetween(from, to)) {
+            track(new Tracked(row.id(), row.groupId(), row.name(), row.expiryDate()));
+        }
+        started = true;
+        tick();
+    }
+
+    /**
+     * Fires every day that has started since the last tick. Runs shortly
+     * after midnight; running it more often is harmless.
+     */
+    @Scheduled(cron = "${premzone.alerts.tick-cron:0 5 0 * * *}")
+    public synchronized void tick() {
+        if (!started) {
+            return;
+        }
+        long today = today();
+        while (currentDay < today) {
+            long day = currentDay + 1;
+            Set<Long> due = slots.get(slot(day));
+            for (Long itemId : due) {
+                Tracked item = tracked.get(itemId);
+                if (item == null) {
+                    continue;
+                }
+                if (day == expiredDay(item)) {
+                    sink.publish(alert(ExpiryAlert.Kind.EXPIRED, item));
+                    // Nothing left to fire for this item
+                    tracked.remove(itemId);
+                } else if (day == soonDay(item)) {
+                    sink.publish(alert(ExpiryAlert.Kind.EXPIRING_SOON, item));
+                }
+            }
+            due.clear();
+            currentDay = day;
+
+            // Day currentDay + horizonDays just entered the wheel
+            long entering = currentDay + horizonDays;
+            LocalDate soonExpiry = LocalDate.ofEpochDay(entering + soonDays);
+            LocalDate expiredExpiry = LocalDate.ofEpochDay(entering - 1);
+            for (ItemContextRow row : inventoryItemRepository.findAllExpiringBetween(soonExpiry, soonExpiry)) {
+                track(new Tracked(row.id(), row.groupId(), row.name(), row.expiryDate()));
+            }
+            for (ItemContextRow row : inventoryItemRepository.findAllExpiringBetween(expiredExpiry, expiredExpiry)) {
+                track(new Tracked(row.id(), row.groupId(), row.name(), row.expiryDate()));
+            }
+        }
+    }
+
+    /**
+     * Reschedules the item's alerts for its current expiry date once the
+     * current transaction commits.
+     */
+    public void itemSaved(InventoryItem item) {
+        LocalDate expiryDate = item instanceof ExpirableItem expirable ? expirable.getExpiryDate() : null;
+        Tracked updated = new Tracked(item.getId(), item.getInventoryGroup().getId(), item.getName(), expiryDate);
+        afterCommit(() -> {
+            untrack(updated.itemId());
+            if (updated.expiryDate() != null) {
+                track(updated);
+            }
+        });
+    }
+
+    /**
+     * Drops the item's pending alerts once the current transaction commits.
+     */
+    public void itemRemoved(Long itemId) {
+        afterCommit(() -> untrack(itemId));
+    }
+
+    synchronized int trackedCount() {
+        return tracked.size();
+    }
+
+    private void afterCommit(Runnable change) {
+        Runnable guarded = () -> {
+            synchronized (this) {
+                // Before start() the initial load picks everything up anyway
+                if (started) {
+                    change.run();
+                }
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    guarded.run();
+                }
+            });
+        } else {
+            guarded.run();
+        }
+    }
+
+    private void track(Tracked item) {
+        boolean scheduled = false;
+        for (long day : new long[] { soonDay(item), expiredDay(item) }) {
+            if (day > currentDay && day <= currentDay + horizonDays) {
+                slots.get(slot(day)).add(item.itemId());
+                scheduled = true;
+            }
+        }
+        if (scheduled) {
+            tracked.put(item.itemId(), item);
+        }
+    }
+
+    private void untrack(Long itemId) {
+        Tracked item = tracked.remove(itemId);
+        if (item == null) {
+            return;
+        }
+        for (long day : new long[] { soonDay(item), expiredDay(item) }) {
+            if (day > currentDay && day <= currentDay + horizonDays) {
+                slots.get(slot(day)).remove(itemId);
+            }
+        }
+    }
+
+    private long soonDay(Tracked item) {
+        return item.expiryDate().toEpochDay() - soonDays;
+    }
+
+    // An item counts as expired the day after its expiry date
+    private long expiredDay(Tracked item) {
+        return item.expiryDate().toEpochDay() + 1;
+    }
+
+    private int slot(long day) {
+        return (int) Math.floorMod(day, (long) slots.size());
+    }
+
+    private long today() {
+        return LocalDate.now(clock).toEpochDay();
+    }
+
+    private static ExpiryAlert alert(ExpiryAlert.Kind kind, Tracked item) {
+        return new ExpiryAlert(kind, item.itemId(), item.groupId(), item.name(), item.expiryDate());
+    }
+}
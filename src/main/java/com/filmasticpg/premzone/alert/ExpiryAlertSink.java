@@ -0,0 +1,9 @@
+package com.filmasticpg.premzone.alert;
+
+/**
+ * Where the scheduler delivers alerts. Selected with premzone.alerts.sink.
+ */
+public interface ExpiryAlertSink {
+
+    void publish(ExpiryAlert alert);
+}
@@ -0,0 +1,30 @@
+package com.filmasticpg.premzone.alert;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Keeps alerts in memory so tests can assert on them.
+ */
+@Component
+@ConditionalOnProperty(name = "premzone.alerts.sink", havingValue = "memory")
+public class InMemoryExpiryAlertSink implements ExpiryAlertSink {
+
+    private final ConcurrentLinkedQueue<ExpiryAlert> alerts = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public void publish(ExpiryAlert alert) {
+        alerts.add(alert);
+    }
+
+    public List<ExpiryAlert> getAlerts() {
+        return List.copyOf(alerts);
+    }
+
+    public void clear() {
+        alerts.clear();
+    }
+}
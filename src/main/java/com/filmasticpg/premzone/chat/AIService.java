@@ -3,63 +3,130 @@ package com.filmasticpg.premzone.chat;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.filmasticpg.premzone.chat.InventoryContextService.InventoryContext;
 import com.filmasticpg.premzone.chat.model.ChatMessage;
 import com.filmasticpg.premzone.chat.model.ChatSession;
 import com.filmasticpg.premzone.chat.model.MessageRole;
 import com.filmasticpg.premzone.chat.repo.ChatMessageRepository;
 import com.filmasticpg.premzone.chat.repo.ChatSessionRepository;
 import com.filmasticpg.premzone.config.UserContext;
+import com.filmasticpg.premzone.group.GroupVersionService;
 import com.filmasticpg.premzone.group.InventoryGroup;
 import com.filmasticpg.premzone.group.InventoryGroupService;
-import com.filmasticpg.premzone.item.ExpirableItem;
-import com.filmasticpg.premzone.item.FoodItem;
-import com.filmasticpg.premzone.item.MedicalItem;
-import com.filmasticpg.premzone.item.PantryItem;
-import com.filmasticpg.premzone.item.ElectronicItem;
-import com.filmasticpg.premzone.item.SupplyItem;
-import com.filmasticpg.premzone.item.InventoryItem;
 import com.filmasticpg.premzone.item.InventoryItemService;
+import com.filmasticpg.premzone.item.ItemCondition;
+import com.filmasticpg.premzone.item.ItemOperation;
+import com.filmasticpg.premzone.item.ItemOperationResult;
 import com.filmasticpg.premzone.user.AppUser;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.Message;
-import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
-import org.springframework.ai.model.Media;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.function.FunctionCallback;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.MimeTypeUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 public class AIService {
 
+    /**
+     * How inventory reaches the model: PROMPT puts the full listing in the
+     * system prompt, TOOLS gives it function callbacks to look items up.
+     */
+    public enum InventoryMode {
+        PROMPT,
+        TOOLS
+    }
+
+    /**
+     * Everything needed to make the model call for one chat turn.
+     * cacheVersion is null when the reply must not be cached, otherwise the
+     * reply is cached under userId and cacheVersion; cachedResponse
+     * is set when the response cache already had an answer (messages is then
+     * null and no model call is needed).
+     */
+    private record PreparedTurn(List<Message> messages, List<FunctionCallback> tools, Long userId,
+            String cacheVersion, Set<Long> groupIds, String cachedResponse) {
+    }
+
     private final ChatClient chatClient;
     private final ChatSessionRepository chatSessionRepository;
     private final ChatMessageRepository chatMessageRepository;
+    private final ChatHistoryService chatHistoryService;
+    private final PromptAssembler promptAssembler;
+    private final ChatResponseCache chatResponseCache;
+    private final InventoryContextService inventoryContextService;
     private final InventoryGroupService inventoryGroupService;
+    private final GroupVersionService groupVersionService;
+    private final InventoryTools inventoryTools;
     private final InventoryItemService inventoryItemService;
     private final UserContext userContext;
     private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final InventoryMode inventoryMode;
+    private final Timer responseTimer;
+    private final DistributionSummary promptTokens;
 
     public AIService(ChatClient.Builder builder,
             ChatSessionRepository chatSessionRepository,
             ChatMessageRepository chatMessageRepository,
+            ChatHistoryService chatHistoryService,
+            PromptAssembler promptAssembler,
+            ChatResponseCache chatResponseCache,
+            InventoryContextService inventoryContextService,
             InventoryGroupService inventoryGroupService,
+            GroupVersionService groupVersionService,
+            InventoryTools inventoryTools,
             InventoryItemService inventoryItemService,
             UserContext userContext,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${premzone.chat.inventory-mode:PROMPT}") InventoryMode inventoryMode) {
         this.chatClient = builder.build();
         this.chatSessionRepository = chatSessionRepository;
         this.chatMessageRepository = chatMessageRepository;
+        this.chatHistoryService = chatHistoryService;
+        this.promptAssembler = promptAssembler;
+        this.chatResponseCache = chatResponseCache;
+        this.inventoryContextService = inventoryContextService;
         this.inventoryGroupService = inventoryGroupService;
+        this.groupVersionService = groupVersionService;
+        this.inventoryTools = inventoryTools;
         this.inventoryItemService = inventoryItemService;
         this.userContext = userContext;
         this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.inventoryMode = inventoryMode;
+        // Tagged by mode so PROMPT and TOOLS can be compared side by side
+        this.responseTimer = Timer.builder("chat.response")
+                .description("End-to-end latency of non-streaming chat model calls")
+                .tag("inventory.mode", inventoryMode.name())
+                .register(meterRegistry);
+        this.promptTokens = DistributionSummary.builder("chat.prompt.tokens")
+                .description("Prompt tokens reported by the provider per chat call (including tool round-trips)")
+                .tag("inventory.mode", inventoryMode.name())
+                .register(meterRegistry);
     }
 
     // --- Session Management ---
@@ -73,9 +140,50 @@ public class AIService {
         return chatSessionRepository.save(session);
     }
 
-    public List<ChatSession> getUserHistory() {
+    /**
+     * One page of the user's sessions as summaries, newest first. cursor is
+     * the nextCursor of the previous page (null for the first one).
+     */
+    public ChatSessionPage getUserHistory(String cursor, int size) {
         AppUser user = userContext.getCurrentUser();
-        return chatSessionRepository.findByUserOrderByCreatedAtDesc(user);
+        int limit = Math.min(Math.max(size, 1), 100);
+        // One extra row tells whether there is a next page
+        List<ChatSessionSummary> sessions = chatSessionRepository.findSummariesByUserId(user.getId(),
+                decodeCursor(cursor), Limit.of(limit + 1));
+        if (sessions.size() <= limit) {
+            return new ChatSessionPage(sessions, null);
+        }
+        sessions = sessions.subList(0, limit);
+        return new ChatSessionPage(List.copyOf(sessions), String.valueOf(sessions.get(limit - 1).id()));
+    }
+
+    /**
+     * Messages of the session, paging backwards from the latest: the first
+     * page holds the newest {@code size} messages, oldest first.
+     */
+    public ChatMessagePage getSessionMessages(Long sessionId, String cursor, int size) {
+        getSession(sessionId);
+        int limit = Math.min(Math.max(size, 1), 200);
+        List<ChatMessage> messages = new ArrayList<>(chatMessageRepository
+                .findBySessionIdAndIdLessThanOrderByIdDesc(sessionId, decodeCursor(cursor), Limit.of(limit + 1)));
+        String nextCursor = null;
+        if (messages.size() > limit) {
+            messages = new ArrayList<>(messages.subList(0, limit));
+            nextCursor = String.valueOf(messages.get(limit - 1).getId());
+        }
+        Collections.reverse(messages);
+        return new ChatMessagePage(messages, nextCursor);
+    }
+
+    // Cursors are the ID of the last row handed out; no cursor starts from the newest
+    private static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank())
+            return Long.MAX_VALUE;
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
     }
 
     public ChatSession getSession(Long sessionId) {
@@ -115,267 +223,303 @@ public class AIService {
         return chatSessionRepository.save(session);
     }
 
-    // --- Chat Logic ---
-
     @Transactional
-    public String generateResponse(Long sessionId, String userMessage, String base64Image, String mimeType) {
+    public ChatSession setResponseCacheEnabled(Long sessionId, boolean enabled) {
         ChatSession session = getSession(sessionId);
+        session.setResponseCacheEnabled(enabled);
+        return chatSessionRepository.save(session);
+    }
+
+    // --- Chat Logic ---
+
+    /**
+     * Not transactional on purpose: the model call can take seconds, so the
+     * database work is split into two short transactions around it and no
+     * connection is held while we wait on the provider.
+     */
+    public ChatReply generateResponse(Long sessionId, String userMessage, ProcessedImage image) {
+        // Phase 1: save the user message and load everything the prompt needs
+        PreparedTurn turn = transactionTemplate.execute(status -> {
+            ChatSession session = getSession(sessionId);
+            return prepareConversation(session, userMessage, image);
+        });
+
+        // 5. Call AI (outside any transaction), unless the response cache already answered
+        String aiResponseText;
+        if (turn.cachedResponse() != null) {
+            aiResponseText = turn.cachedResponse();
+        } else {
+            ChatResponse response = responseTimer.record(() -> request(turn).call().chatResponse());
+            var usage = response.getMetadata().getUsage();
+            if (usage != null && usage.getPromptTokens() != null) {
+                promptTokens.record(usage.getPromptTokens().doubleValue());
+            }
+            aiResponseText = response.getResult().getOutput().getContent();
+            if (turn.cacheVersion() != null) {
+                chatResponseCache.put(turn.userId(), turn.cacheVersion(), turn.groupIds(), userMessage,
+                        aiResponseText);
+            }
+        }
+
+        // 6. Save Assistant Message
+        Long messageId = transactionTemplate.execute(status -> {
+            ChatMessage aiMsg = new ChatMessage(chatSessionRepository.getReferenceById(sessionId), aiResponseText,
+                    MessageRole.ASSISTANT);
+            return chatMessageRepository.save(aiMsg).getId();
+        });
+        chatHistoryService.refreshSummaryAsync(sessionId);
+
+        return new ChatReply(messageId, aiResponseText);
+    }
+
+    /**
+     * Streaming variant of {@link #generateResponse}. Tokens are emitted as they
+     * arrive from the model; the assistant message is saved once when the stream
+     * ends, followed by a last element with its id, or with whatever was
+     * generated so far if the client disconnects.
+     */
+    public Flux<ChatReply> streamResponse(Long sessionId, String userMessage, ProcessedImage image) {
+        // Everything that needs the request (user, lazy loading) happens up front
+        PreparedTurn turn = transactionTemplate.execute(status -> {
+            ChatSession session = getSession(sessionId);
+            return prepareConversation(session, userMessage, image);
+        });
+
+        StringBuilder generated = new StringBuilder();
+        AtomicBoolean persisted = new AtomicBoolean(false);
+
+        Flux<String> tokens = turn.cachedResponse() != null
+                ? Flux.just(turn.cachedResponse())
+                : request(turn).stream().content();
+
+        return tokens
+                .doOnNext(generated::append)
+                .map(token -> new ChatReply(null, token))
+                .concatWith(Mono.fromSupplier(() -> new ChatReply(
+                        saveStreamed(sessionId, turn, userMessage, generated, persisted, true), null)))
+                .doFinally(signal -> {
+                    if (signal != SignalType.ON_COMPLETE) {
+                        saveStreamed(sessionId, turn, userMessage, generated, persisted, false);
+                    }
+                });
+    }
 
+    /** Saves a streamed reply at most once; returns the message id, or null if nothing was saved. */
+    private Long saveStreamed(Long sessionId, PreparedTurn turn, String userMessage, StringBuilder generated,
+            AtomicBoolean persisted, boolean complete) {
+        if (generated.length() == 0 || !persisted.compareAndSet(false, true)) {
+            return null;
+        }
+        String content = generated.toString();
+        if (!complete) {
+            content += " [Response interrupted]";
+        } else if (turn.cachedResponse() == null && turn.cacheVersion() != null) {
+            chatResponseCache.put(turn.userId(), turn.cacheVersion(), turn.groupIds(), userMessage, content);
+        }
+        String saved = content;
+        // Runs on a reactor thread with no request around it
+        Long messageId = transactionTemplate.execute(status -> chatMessageRepository.save(new ChatMessage(
+                chatSessionRepository.getReferenceById(sessionId), saved, MessageRole.ASSISTANT)).getId());
+        chatHistoryService.refreshSummaryAsync(sessionId);
+        return messageId;
+    }
+
+    private ChatClient.ChatClientRequestSpec request(PreparedTurn turn) {
+        ChatClient.ChatClientRequestSpec spec = chatClient.prompt(new Prompt(turn.messages()));
+        if (!turn.tools().isEmpty()) {
+            spec = spec.functions(turn.tools().toArray(new FunctionCallback[0]));
+        }
+        return spec;
+    }
+
+    /**
+     * Saves the user's message and assembles the full prompt (system text,
+     * history and the new message) for a chat turn. image is already
+     * downscaled (see {@link ImageProcessor}) and may be null.
+     */
+    private PreparedTurn prepareConversation(ChatSession session, String userMessage, ProcessedImage image) {
         // 1. Save User Message (Text part)
         // Note: We are currently NOT saving the image to DB to save space, but we use
         // it for generation.
-        ChatMessage userMsg = new ChatMessage(session, userMessage + (base64Image != null ? " [Image Uploaded]" : ""),
+        ChatMessage userMsg = new ChatMessage(session, userMessage + (image != null ? " [Image Uploaded]" : ""),
                 MessageRole.USER);
         chatMessageRepository.save(userMsg);
 
         // 2. Build Context
-        String inventoryContext = buildInventoryContext(userMessage);
-
-        // 3. Build History
-        List<ChatMessage> historyEntities = chatMessageRepository.findBySessionIdOrderByTimestampAsc(sessionId);
-        List<Message> promptMessages = new ArrayList<>();
-
-        // Add System Prompt
-        String systemText = """
-                You are a chill, Gen Z roommate/friend. You help the user manage their inventory and cook stuff.
-                Don't be formal. Use casual language (e.g., "No cap", "Bet", "Yo").
-
-                CONTEXT:
-                Current Date: %s
-                User's Inventory:
-                %s
-
-                RULES:
-                1. Suggest recipes based on what the user has.
-                2. Prioritize items expiring within 7 days. Mention them explicitly (e.g. "Yo, your milk is expiring soon").
-                3. Check for specific tools (Category: 'Electronic' or 'Kitchenware'). If available, mention them in **bold** (e.g. "Use your **Air Fryer**").
-                4. If the user accepts a suggestion or asks to remove items, provide a JSON PROPOSAL at the end of your response inside a code block.
-
-                PROPOSAL FORMAT:
-                ```json
-                {
-                   "action": "REDUCE_QUANTITY",
-                   "items": [
-                      {"id": 123, "name": "Milk", "quantity": 2},
-                      {"id": 456, "name": "Eggs", "quantity": 1}
-                   ]
-                }
-                ```
-                OR
-                ```json
-                {
-                   "action": "ADD_ITEMS",
-                   "items": [
-                      {
-                        "name": "Milk",
-                        "quantity": 1,
-                        "groupId": 1,
-                        "category": "Dairy",
-                        "expiryDate": "2024-12-31",
-                        "type": "Food"
-                      }
-                   ]
-                }
-                ```
-
-                RULES FOR ADDING:
-                1. If the user provides a list or image of items, use "ADD_ITEMS".
-                2. Pick the most relevant Group ID from context. If unsure, use the first one.
-                3. **ESTIMATE** details if not provided:
-                   - `category`: Infer from name (e.g., Apple -> Produce/Food, Tylenol -> Medical).
-                   - `expiryDate`: ESTIMATE for Food/Medical. (Milk: +7 days, Veggies: +5 days, Canned: +1 year). Format YYYY-MM-DD.
-                   - `type`: 'Food', 'Medical', 'Electronics', 'Supply', 'Pantry'.
-                4. For Images: Analyze the image to identify items and quantities.
-
-                NEVER propose removing Non-Consumable items (like Tools) unless explicitly asked to.
-                For recipes, only reduce Ingredients (Food/Pantry).
-                IMPORTANT: You MUST include the exact "name" of the item in the JSON so the user knows what is being removed.
-                """
-                .formatted(LocalDate.now(), inventoryContext);
-
-        promptMessages.add(new SystemMessage(systemText));
-
-        // Add Conversation History
-        for (ChatMessage msg : historyEntities) {
-            if (msg.getRole() == MessageRole.USER) {
-                promptMessages.add(new UserMessage(msg.getContent()));
-            } else {
-                promptMessages.add(new AssistantMessage(msg.getContent()));
-            }
-        }
+        List<InventoryGroup> groups = inventoryGroupService.getAllGroups();
+        Set<Long> groupIds = new HashSet<>();
+        groups.forEach(group -> groupIds.add(group.getId()));
 
-        // Add Current User Message (Multi-modal if image exists)
-        if (base64Image != null && !base64Image.isEmpty()) {
-            try {
-                // Use provided mimeType or default to JPEG
-                org.springframework.util.MimeType type = (mimeType != null && !mimeType.isEmpty())
-                        ? MimeTypeUtils.parseMimeType(mimeType)
-                        : MimeTypeUtils.IMAGE_JPEG;
-
-                Media media = new Media(type, new org.springframework.core.io.ByteArrayResource(
-                        java.util.Base64.getDecoder().decode(base64Image)));
-                promptMessages.add(new UserMessage(userMessage, List.of(media)));
-            } catch (Exception e) {
-                // Fallback if image fails
-                promptMessages.add(new UserMessage(userMessage + " [Image Upload Failed: " + e.getMessage() + "]"));
-            }
-        } else {
-            promptMessages.add(new UserMessage(userMessage));
-        }
+        // 3. Build History (bounded window + rolling summary)
+        List<Message> history = chatHistoryService.buildHistory(session, userMsg.getId());
 
         // 4. Update Title (heuristic)
-        if (session.getTitle().equals("New Chat") && historyEntities.size() <= 2) {
+        if (session.getTitle().equals("New Chat") && history.size() <= 1) {
             String newTitle = userMessage.length() > 30 ? userMessage.substring(0, 30) + "..." : userMessage;
             session.setTitle(newTitle);
             chatSessionRepository.save(session);
         }
 
-        // 5. Call AI
-        String aiResponseText = chatClient.prompt(new Prompt(promptMessages))
-                .call()
-                .content();
+        // Repeated text-only questions against an unchanged inventory can be
+        // answered from the response cache. Only a session's opening message
+        // qualifies: a follow-up ("yes", "do it") means something different in
+        // every conversation, and its reply may carry that conversation's item IDs.
+        // Counted on the session rather than the history, which can be empty
+        // for other reasons (a summary refresh pending, messages over budget)
+        Long userId = session.getUser().getId();
+        String cacheVersion = null;
+        if (chatResponseCache.isEnabled() && session.isResponseCacheEnabled()
+                && image == null && chatMessageRepository.countBySessionId(session.getId()) == 1) {
+            cacheVersion = inventoryMode + "|" + LocalDate.now() + "|" + groupVersionService.fingerprint(groupIds);
+            String cached = chatResponseCache.get(userId, cacheVersion, userMessage).orElse(null);
+            if (cached != null) {
+                return new PreparedTurn(null, List.of(), userId, cacheVersion, groupIds, cached);
+            }
+        }
 
-        // 6. Save Assistant Message
-        ChatMessage aiMsg = new ChatMessage(session, aiResponseText, MessageRole.ASSISTANT);
-        chatMessageRepository.save(aiMsg);
+        InventoryContext inventoryContext;
+        List<FunctionCallback> tools;
+        if (inventoryMode == InventoryMode.TOOLS) {
+            inventoryContext = new InventoryContext(inventoryContextService.buildGroupDirectory(groups)
+                    + "\nItems are not listed here. Use the searchItems, listExpiringItems and getItemsByGroup"
+                    + " tools to look up what the user has (including item IDs) before suggesting or proposing anything.\n",
+                    null);
+            tools = inventoryTools.forGroups(groupIds);
+        } else {
+            inventoryContext = inventoryContextService.buildContext(groups, userMessage);
+            tools = List.of();
+        }
 
-        return aiResponseText;
+        // Current User Message (Multi-modal if image exists)
+        Message currentMessage = image != null
+                ? new UserMessage(userMessage, List.of(image.toMedia()))
+                : new UserMessage(userMessage);
+
+        // Static instructions first, then context, history, the items picked
+        // for this message and the message itself
+        List<Message> promptMessages = promptAssembler.assemble(session.getId(), inventoryContext.inventory(),
+                inventoryContext.relevantItems(), history, currentMessage);
+
+        return new PreparedTurn(promptMessages, tools, userId, cacheVersion, groupIds, null);
     }
 
+    /**
+     * Applies a confirmed ADD_ITEMS / REDUCE_QUANTITY proposal as one batch
+     * (see {@link InventoryItemService#applyBatch}). Items that can't be
+     * applied come back with an error instead of failing the rest. The
+     * proposal runs at most once per message: a retry gets the results of the
+     * first run. The message must belong to one of the current user's
+     * sessions.
+     */
     @Transactional
-    public void executeProposal(String jsonProposal, Long messageId) {
+    public ProposalExecution executeProposal(String jsonProposal, Long messageId) {
+        JsonNode root;
         try {
-            JsonNode root = objectMapper.readTree(jsonProposal);
-            String action = root.path("action").asText();
-            boolean executed = false;
-
-            if ("REDUCE_QUANTITY".equals(action)) {
-                JsonNode items = root.path("items");
-                if (items.isArray()) {
-                    for (JsonNode item : items) {
-                        Long id = item.path("id").asLong();
-                        int quantity = item.path("quantity").asInt();
-                        if (id > 0 && quantity > 0) {
-                            inventoryItemService.reduceItemQuantity(id, quantity);
-                        }
-                    }
-                    executed = true;
-                }
-            } else if ("ADD_ITEMS".equals(action)) {
-                JsonNode items = root.path("items");
-                if (items.isArray()) {
-                    for (JsonNode item : items) {
-                        try {
-                            String name = item.path("name").asText();
-                            int quantity = item.path("quantity").asInt();
-                            String type = item.path("type").asText("Food");
-                            String categoryName = item.path("category").asText("General");
-                            // Default to first group if not specified.
-                            Long groupId = item.has("groupId") ? item.path("groupId").asLong() : 1L;
-                            if (groupId == 0)
-                                groupId = 1L; // Fallback
-
-                            // Estimate expiry if present
-                            String expiryDateStr = item.has("expiryDate") ? item.path("expiryDate").asText() : null;
-                            LocalDate expiryDate = (expiryDateStr != null && !expiryDateStr.isEmpty())
-                                    ? LocalDate.parse(expiryDateStr)
-                                    : null;
-
-                            InventoryItem newItem;
-                            // Factory logic for concrete items
-                            switch (type.toLowerCase()) {
-                                case "food":
-                                    newItem = new FoodItem();
-                                    break;
-                                case "medical":
-                                    newItem = new MedicalItem();
-                                    break;
-                                case "pantry":
-                                    newItem = new PantryItem();
-                                    break;
-                                case "electronics":
-                                    newItem = new ElectronicItem();
-                                    break;
-                                case "supply":
-                                default:
-                                    newItem = new SupplyItem(); // Default to Supply
-                                    break;
-                            }
-
-                            newItem.setName(name);
-                            newItem.setQuantity(quantity);
-                            // newItem.setType(type); // Removed as it doesn't exist; class determines type
-                            if (newItem instanceof ExpirableItem expItem) {
-                                expItem.setExpiryDate(expiryDate);
-                            }
-                            // Note: condition is not in ExpirableItem base but InventoryItem depending on
-                            // implementation.
-                            // Assuming InventoryItem has setCondition or similar if needed, but not
-                            // critical for MVP.
-
-                            inventoryItemService.addItem(groupId, newItem, categoryName);
-
-                        } catch (Exception e) {
-                            System.err.println("Failed to add item: " + e.getMessage());
-                        }
-                    }
-                    executed = true;
-                }
+            root = objectMapper.readTree(jsonProposal);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Invalid proposal format", e);
+        }
+        String action = root.path("action").asText();
+        JsonNode proposed = root.path("items");
+        if (!"REDUCE_QUANTITY".equals(action) && !"ADD_ITEMS".equals(action))
+            throw new IllegalArgumentException("Unsupported action: " + action);
+        if (!proposed.isArray())
+            throw new IllegalArgumentException("Proposal has no items");
+
+        // Without it there is nothing to claim, and a retry would apply the proposal twice
+        if (messageId == null)
+            throw new IllegalArgumentException("messageId is required");
+
+        LocalDateTime now = LocalDateTime.now();
+        // Throws unless the current user owns the message's session
+        getSession(chatMessageRepository.findSessionIdById(messageId)
+                .orElseThrow(() -> new RuntimeException("Message not found")));
+        if (chatMessageRepository.claimExecution(messageId, now) == 0) {
+            ChatMessage message = chatMessageRepository.findById(messageId)
+                    .orElseThrow(() -> new RuntimeException("Message not found"));
+            return new ProposalExecution(true, readResults(message.getExecutionResult()));
+        }
+
+        Set<Long> groupIds = inventoryGroupService.getCurrentUserGroupIds();
+        Long defaultGroupId = groupIds.stream().min(Long::compare).orElse(null);
+
+        // Items that don't even parse get their error here; the rest go to the
+        // batch, whose results are mapped back to proposal positions
+        ItemOperationResult[] results = new ItemOperationResult[proposed.size()];
+        List<ItemOperation> operations = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < proposed.size(); i++) {
+            try {
+                operations.add(toOperation(action, proposed.get(i), defaultGroupId));
+                positions.add(i);
+            } catch (RuntimeException e) {
+                ItemOperation.Type type = "ADD_ITEMS".equals(action) ? ItemOperation.Type.ADD
+                        : ItemOperation.Type.REDUCE;
+                results[i] = new ItemOperationResult(i, type, null, null, false, "Invalid item: " + e.getMessage());
             }
+        }
+        for (ItemOperationResult r : inventoryItemService.applyBatch(operations, groupIds, true)) {
+            int pos = positions.get(r.index());
+            results[pos] = new ItemOperationResult(pos, r.op(), r.id(), r.quantity(), r.removed(), r.error());
+        }
+        List<ItemOperationResult> items = List.of(results);
 
-            // Persist execution state if messageId is provided
-            if (executed && messageId != null) {
-                ChatMessage message = chatMessageRepository.findById(messageId).orElse(null);
-                if (message != null) {
-                    // Start simple: Append a flag or modify JSON.
-                    // Best way is to parse the original content, find the JSON block, and inject
-                    // "executed": true.
-                    // But parsing mix of text and JSON is hard.
-                    // Easier: Just append a marker [EXECUTED] or similar and handle in frontend?
-                    // Or since the frontend parses the JSON block, we can just edit the JSON block
-                    // in the text.
-
-                    String content = message.getContent();
-                    // Basic string replacement to inject "executed": true into the JSON action
-                    // block
-                    // We look for the "action": "..." part and insert "executed": true, right
-                    // before it.
-                    // Robustness: This is heuristic but works for our generated prompts
-                    if (content.contains("\"action\":")) {
-                        String updatedContent = content.replaceFirst("\"action\":", "\"executed\": true, \"action\":");
-                        message.setContent(updatedContent);
-                        chatMessageRepository.save(message);
-                    }
-                }
+        ChatMessage message = chatMessageRepository.findById(messageId)
+                .orElseThrow(() -> new RuntimeException("Message not found"));
+        if (items.stream().allMatch(r -> r.error() != null)) {
+            // Nothing was applied, so leave the proposal open for another try
+            message.setExecutedAt(null);
+        } else {
+            message.setExecutedAt(now);
+            message.setExecutionResult(writeResults(items));
+            // The frontend looks for this marker in the JSON block to show
+            // the proposal as confirmed
+            String content = message.getContent();
+            if (content.contains("\"action\":") && !content.contains("\"executed\": true")) {
+                message.setContent(content.replaceFirst("\"action\":", "\"executed\": true, \"action\":"));
             }
+        }
+        return new ProposalExecution(false, items);
+    }
+
+    private static ItemOperation toOperation(String action, JsonNode item, Long defaultGroupId) {
+        if ("REDUCE_QUANTITY".equals(action)) {
+            long id = item.path("id").asLong();
+            return new ItemOperation(ItemOperation.Type.REDUCE, id > 0 ? id : null, null, null, null, null, null,
+                    null, null, item.path("quantity").asInt());
+        }
+
+        String type = switch (item.path("type").asText("Food").toLowerCase()) {
+            case "food" -> "Food";
+            case "medical" -> "Medical";
+            case "pantry" -> "Pantry";
+            case "electronics" -> "Electronics";
+            default -> "Supply";
+        };
+        long groupId = item.path("groupId").asLong();
+        String expiry = item.path("expiryDate").asText("");
+        boolean conditionBased = "Electronics".equals(type) || "Supply".equals(type);
+        return new ItemOperation(ItemOperation.Type.ADD, null, groupId > 0 ? groupId : defaultGroupId, type,
+                item.path("name").asText(null), item.path("category").asText("General"),
+                item.path("quantity").asInt(), expiry.isEmpty() ? null : LocalDate.parse(expiry),
+                conditionBased ? ItemCondition.NEW : null, null);
+    }
+
+    private String writeResults(List<ItemOperationResult> results) {
+        try {
+            return objectMapper.writeValueAsString(results);
         } catch (JsonProcessingException e) {
-            throw new RuntimeException("Invalid proposal format", e);
+            throw new RuntimeException("Failed to store execution result", e);
         }
     }
 
-    private String buildInventoryContext(String query) {
-        List<InventoryGroup> groups = inventoryGroupService.getAllGroups();
-        StringBuilder sb = new StringBuilder();
-
-        for (InventoryGroup group : groups) {
-            sb.append(String.format("Group: %s [ID: %d]\n", group.getGroupName(), group.getId()));
-            for (InventoryItem item : group.getItems()) {
-                String category = "Unknown";
-                if (item.getCategory() != null) {
-                    category = item.getCategory().getName();
-                }
-
-                sb.append(String.format("  - [ID: %d] %s (Qty: %d) [Category: %s]",
-                        item.getId(), item.getName(), item.getQuantity(), category));
-
-                if (item instanceof ExpirableItem expItem && expItem.getExpiryDate() != null) {
-                    sb.append(String.format(" [Expires: %s]", expItem.getExpiryDate()));
-                }
-                sb.append("\n");
-            }
+    private List<ItemOperationResult> readResults(String json) {
+        if (json == null)
+            return List.of();
+        try {
+            return List.of(objectMapper.readValue(json, ItemOperationResult[].class));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to read execution result", e);
         }
-        if (sb.length() == 0)
-            return "Inventory is empty.";
-        return sb.toString();
     }
 }
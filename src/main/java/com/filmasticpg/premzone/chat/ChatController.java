@@ -2,10 +2,15 @@ package com.filmasticpg.premzone.chat;
 
 import com.filmasticpg.premzone.chat.model.ChatSession;
 import com.filmasticpg.premzone.chat.model.ChatMessage;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 
 @RestController
@@ -14,9 +19,11 @@ import java.util.Map;
 public class ChatController {
 
     private final AIService aiService;
+    private final ImageProcessor imageProcessor;
 
-    public ChatController(AIService aiService) {
+    public ChatController(AIService aiService, ImageProcessor imageProcessor) {
         this.aiService = aiService;
+        this.imageProcessor = imageProcessor;
     }
 
     @PostMapping("/start")
@@ -26,8 +33,9 @@ public class ChatController {
     }
 
     @GetMapping("/history")
-    public ResponseEntity<List<ChatSession>> getHistory() {
-        return ResponseEntity.ok(aiService.getUserHistory());
+    public ResponseEntity<ChatSessionPage> getHistory(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(aiService.getUserHistory(cursor, size));
     }
 
     @GetMapping("/{id}")
@@ -35,6 +43,13 @@ public class ChatController {
         return ResponseEntity.ok(aiService.getSession(id));
     }
 
+    @GetMapping("/{id}/messages")
+    public ResponseEntity<ChatMessagePage> getMessages(@PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(aiService.getSessionMessages(id, cursor, size));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteSession(@PathVariable Long id) {
         aiService.deleteSession(id);
@@ -47,21 +62,67 @@ public class ChatController {
         return ResponseEntity.ok(aiService.renameSession(id, newTitle));
     }
 
+    @PutMapping("/{id}/cache")
+    public ResponseEntity<ChatSession> setResponseCache(@PathVariable Long id, @RequestBody Map<String, Boolean> payload) {
+        boolean enabled = !Boolean.FALSE.equals(payload.get("enabled"));
+        return ResponseEntity.ok(aiService.setResponseCacheEnabled(id, enabled));
+    }
+
     @PostMapping("/{id}/send")
-    public ResponseEntity<String> sendMessage(@PathVariable Long id, @RequestBody Map<String, String> payload) {
+    public ResponseEntity<ChatReply> sendMessage(@PathVariable Long id, @RequestBody Map<String, String> payload) {
         String message = payload.get("message");
-        String image = payload.get("image"); // Optional Base64 image
-        String mimeType = payload.get("mimeType"); // Optional MimeType
-        String response = aiService.generateResponse(id, message, image, mimeType);
+        // Optional Base64 image; the format is detected from the data, so mimeType is no longer needed
+        ProcessedImage image = imageProcessor.processBase64(payload.get("image"));
+        ChatReply response = aiService.generateResponse(id, message, image);
         return ResponseEntity.ok(response);
     }
 
+    // Preferred for images: the file is streamed from the multipart upload
+    // (spooled to disk by the container) instead of travelling as base64 in JSON
+    @PostMapping(value = "/{id}/send", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ChatReply> sendMessageWithImage(@PathVariable Long id,
+            @RequestParam("message") String message,
+            @RequestPart(value = "image", required = false) MultipartFile image) throws IOException {
+        return ResponseEntity.ok(aiService.generateResponse(id, message, process(image)));
+    }
+
+    @PostMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamMessage(@PathVariable Long id, @RequestBody Map<String, String> payload) {
+        String message = payload.get("message");
+        ProcessedImage image = imageProcessor.processBase64(payload.get("image")); // Optional Base64 image
+        return toEvents(aiService.streamResponse(id, message, image));
+    }
+
+    @PostMapping(value = "/{id}/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamMessageWithImage(@PathVariable Long id,
+            @RequestParam("message") String message,
+            @RequestPart(value = "image", required = false) MultipartFile image) throws IOException {
+        return toEvents(aiService.streamResponse(id, message, process(image)));
+    }
+
+    private ProcessedImage process(MultipartFile image) throws IOException {
+        if (image == null || image.isEmpty()) {
+            return null;
+        }
+        try (InputStream in = image.getInputStream()) {
+            return imageProcessor.process(in);
+        }
+    }
+
+    // The done event's data is the saved message id, needed to execute a proposal
+    private static Flux<ServerSentEvent<String>> toEvents(Flux<ChatReply> reply) {
+        return reply.map(part -> part.content() != null
+                ? ServerSentEvent.builder(part.content()).event("token").build()
+                : ServerSentEvent.builder(part.messageId() != null ? part.messageId().toString() : "")
+                        .event("done").build());
+    }
+
     @PostMapping("/execute-action")
-    public ResponseEntity<String> executeAction(@RequestBody Map<String, Object> payload) {
+    public ResponseEntity<ProposalExecution> executeAction(@RequestBody Map<String, Object> payload) {
         String proposalJson = (String) payload.get("proposal");
-        Long messageId = payload.containsKey("messageId") ? Long.valueOf(payload.get("messageId").toString()) : null;
+        Long messageId = payload.get("messageId") != null ? Long.valueOf(payload.get("messageId").toString()) : null;
 
-        aiService.executeProposal(proposalJson, messageId);
-        return ResponseEntity.ok("Action executed successfully.");
+        return ResponseEntity.ok(aiService.executeProposal(proposalJson, messageId));
     }
 }
@@ -0,0 +1,254 @@
+package com.filmasticpg.premzone.chat;
+
+import com.filmasticpg.premzone.chat.model.ChatMessage;
+import com.filmasticpg.premzone.chat.model.ChatSession;
+import com.filmasticpg.premzone.chat.model.MessageRole;
+import com.filmasticpg.premzone.chat.repo.ChatMessageRepository;
+import com.filmasticpg.premzone.chat.repo.ChatSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the conversation history for a chat turn within a fixed budget.
+ * The most recent messages are replayed verbatim (up to a message count and
+ * a token budget); anything older is folded into a rolling summary stored on
+ * the ChatSession, so a long session costs about the same per turn as a
+ * short one. Messages that have left the window but are not in the summary
+ * yet (it is refreshed in batches) stay in the prompt until they are, within
+ * the same token budget. The latest message is always sent, cut down to the
+ * budget if it is longer.
+ */
+@Service
+public class ChatHistoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatHistoryService.class);
+
+    private static final String SUMMARY_INSTRUCTIONS = """
+            Summarize the conversation between a user and their inventory/cooking assistant.
+            Keep it under 150 words. Keep facts that matter later: items and quantities mentioned,
+            recipes discussed, and anything the user accepted, declined or asked to remember.
+            """;
+
+    private final ChatClient chatClient;
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatSessionRepository chatSessionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor taskExecutor;
+    private final int maxMessages;
+    private final int tokenBudget;
+    private final int summaryBatchSize;
+
+    // Sessions with a summary refresh currently running
+    private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+
+    public ChatHistoryService(ChatClient.Builder builder,
+            ChatMessageRepository chatMessageRepository,
+            ChatSessionRepository chatSessionRepository,
+            PlatformTransactionManager transactionManager,
+            TaskExecutor taskExecutor,
+            @Value("${premzone.chat.history.max-messages:12}") int maxMessages,
+            @Value("${premzone.chat.history.token-budget:2000}") int tokenBudget,
+            @Value("${premzone.chat.history.summary-batch-size:4}") int summaryBatchSize) {
+        this.chatClient = builder.build();
+        this.chatMessageRepository = chatMessageRepository;
+        this.chatSessionRepository = chatSessionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+        this.maxMessages = maxMessages;
+        this.tokenBudget = tokenBudget;
+        this.summaryBatchSize = summaryBatchSize;
+    }
+
+    /**
+     * Returns the summary (if any) followed by the recent messages of the
+     * session, oldest first. The message with id {@code excludeMessageId} (the
+     * one being answered) is left out since the caller adds it itself.
+     */
+    public List<Message> buildHistory(ChatSession session, Long excludeMessageId) {
+        List<Message> history = new ArrayList<>();
+        if (session.getSummary() != null && !session.getSummary().isBlank()) {
+            history.add(new SystemMessage("Summary of the earlier conversation:\n" + session.getSummary()));
+        }
+        for (ChatMessage msg : unsummarizedMessages(session, excludeMessageId)) {
+            String content = fitToBudget(msg.getContent());
+            if (msg.getRole() == MessageRole.USER) {
+                history.add(new UserMessage(content));
+            } else {
+                history.add(new AssistantMessage(content));
+            }
+        }
+        return history;
+    }
+
+    /**
+     * Folds messages that have dropped out of the recent window into the
+     * session summary. Runs in the background and only once enough messages
+     * have accumulated, so most turns don't pay for an extra model call.
+     */
+    public void refreshSummaryAsync(Long sessionId) {
+        if (!refreshing.add(sessionId)) {
+            return;
+        }
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    refreshSummary(sessionId);
+                } catch (Exception e) {
+                    log.warn("Failed to refresh chat summary for session {}", sessionId, e);
+                } finally {
+                    refreshing.remove(sessionId);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.remove(sessionId);
+            throw e;
+        }
+    }
+
+    private void refreshSummary(Long sessionId) {
+        record Pending(String previousSummary, List<ChatMessage> evicted) {
+        }
+
+        Pending pending = transactionTemplate.execute(status -> {
+            ChatSession session = chatSessionRepository.findById(sessionId).orElse(null);
+            if (session == null) {
+                return null;
+            }
+            List<ChatMessage> window = recentWindow(sessionId, null);
+            if (window.isEmpty()) {
+                return null;
+            }
+            long after = session.getSummarizedUpToId() != null ? session.getSummarizedUpToId() : 0L;
+            long before = window.get(0).getId();
+            List<ChatMessage> evicted = chatMessageRepository.findBySessionIdAndIdBetweenOrderByIdAsc(sessionId,
+                    after + 1, before - 1, Limit.of(maxMessages * 4));
+            if (evicted.size() < summaryBatchSize) {
+                return null;
+            }
+            return new Pending(session.getSummary(), evicted);
+        });
+        if (pending == null) {
+            return;
+        }
+
+        StringBuilder transcript = new StringBuilder();
+        if (pending.previousSummary() != null) {
+            transcript.append("Previous summary:\n").append(pending.previousSummary()).append("\n\n");
+        }
+        transcript.append("New messages:\n");
+        for (ChatMessage msg : pending.evicted()) {
+            transcript.append(msg.getRole()).append(": ").append(msg.getContent()).append("\n");
+        }
+
+        // Model call happens outside any transaction
+        String summary = chatClient.prompt()
+                .system(SUMMARY_INSTRUCTIONS)
+                .user(transcript.toString())
+                .call()
+                .content();
+        if (summary == null || summary.isBlank()) {
+            return;
+        }
+
+        Long summarizedUpTo = pending.evicted().get(pending.evicted().size() - 1).getId();
+        transactionTemplate.executeWithoutResult(status -> chatSessionRepository.findById(sessionId)
+                .ifPresent(session -> {
+                    session.setSummary(summary);
+                    session.setSummarizedUpToId(summarizedUpTo);
+                }));
+    }
+
+    /**
+     * The recent window, preceded by the messages between the summary and the
+     * window (normally fewer than summaryBatchSize, at most maxMessages) so
+     * none of them is missing from the prompt while a refresh is pending.
+     * They share the window's token budget; the ones that don't fit are left
+     * to the summary.
+     */
+    private List<ChatMessage> unsummarizedMessages(ChatSession session, Long excludeMessageId) {
+        List<ChatMessage> window = recentWindow(session.getId(), excludeMessageId);
+        if (window.isEmpty()) {
+            return window;
+        }
+        long after = session.getSummarizedUpToId() != null ? session.getSummarizedUpToId() : 0L;
+        List<ChatMessage> pending = chatMessageRepository.findBySessionIdAndIdBetweenOrderByIdDesc(session.getId(),
+                after + 1, window.get(0).getId() - 1, Limit.of(maxMessages));
+        int usedTokens = 0;
+        for (ChatMessage msg : window) {
+            usedTokens += cost(msg);
+        }
+        List<ChatMessage> messages = new ArrayList<>();
+        for (ChatMessage msg : pending) {
+            int tokens = cost(msg);
+            if (usedTokens + tokens > tokenBudget) {
+                break;
+            }
+            messages.add(msg);
+            usedTokens += tokens;
+        }
+        if (messages.isEmpty()) {
+            return window;
+        }
+        Collections.reverse(messages);
+        messages.addAll(window);
+        return messages;
+    }
+
+    /**
+     * Latest messages of the session, oldest first, capped at maxMessages and
+     * the token budget. The newest one is always included, so the window is
+     * only empty for a session without messages. Only the newest
+     * maxMessages + 1 rows are read.
+     */
+    private List<ChatMessage> recentWindow(Long sessionId, Long excludeMessageId) {
+        List<ChatMessage> latest = chatMessageRepository.findBySessionIdOrderByIdDesc(sessionId,
+                Limit.of(maxMessages + 1));
+        List<ChatMessage> window = new ArrayList<>();
+        int usedTokens = 0;
+        for (ChatMessage msg : latest) {
+            if (msg.getId().equals(excludeMessageId)) {
+                continue;
+            }
+            int tokens = cost(msg);
+            if (window.size() >= maxMessages || (!window.isEmpty() && usedTokens + tokens > tokenBudget)) {
+                break;
+            }
+            window.add(msg);
+            usedTokens += tokens;
+        }
+        Collections.reverse(window);
+        return window;
+    }
+
+    // Tokens a message takes in the prompt, after fitToBudget
+    private int cost(ChatMessage msg) {
+        return Math.min(PromptAssembler.estimateTokens(msg.getContent()), tokenBudget);
+    }
+
+    // Only the newest message can be longer than the whole budget. Its end is
+    // kept, since that is where a proposal's JSON (with the item IDs) sits
+    private String fitToBudget(String content) {
+        int maxChars = tokenBudget * 4;
+        if (content == null || content.length() <= maxChars) {
+            return content;
+        }
+        return "[truncated] " + content.substring(content.length() - maxChars);
+    }
+}
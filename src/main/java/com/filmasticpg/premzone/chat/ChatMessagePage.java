@@ -0,0 +1,13 @@
+package com.filmasticpg.premzone.chat;
+
+import com.filmasticpg.premzone.chat.model.ChatMessage;
+
+import java.util.List;
+
+/**
+ * A run of consecutive messages of a session, oldest first. Pages go
+ * backwards from the latest message; nextCursor fetches the run before this
+ * one and is null once the start of the session is reached.
+ */
+public record ChatMessagePage(List<ChatMessage> messages, String nextCursor) {
+}
@@ -0,0 +1,10 @@
+package com.filmasticpg.premzone.chat;
+
+/**
+ * An assistant reply and the id of the message it was saved as, which the
+ * client sends back to execute a proposal in the reply. While streaming,
+ * each token comes with a null messageId and the last element carries the
+ * id with no content (the id is null if nothing was generated).
+ */
+public record ChatReply(Long messageId, String content) {
+}
@@ -0,0 +1,166 @@
+package com.filmasticpg.premzone.chat;
+
+import com.filmasticpg.premzone.group.InventoryGroupChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches model replies for repeated questions ("what's expiring?") asked
+ * against an unchanged inventory. Entries are keyed by the user, the
+ * normalised message text and the inventory fingerprint (group versions +
+ * date), expire after a TTL and are bounded in number. Any change to one of
+ * the groups an entry was built from drops it straight away. Replies are
+ * never shared between users, even ones in the same groups.
+ *
+ * With a similarity threshold below 1.0, a miss on the exact text falls back
+ * to the most similar cached question of the same user and inventory.
+ */
+@Component
+public class ChatResponseCache {
+
+    record Scope(Long userId, String inventoryVersion) {
+    }
+
+    record Key(Scope scope, String normalizedText) {
+    }
+
+    record Entry(String response, Set<Long> groupIds, float[] vector) {
+    }
+
+    private final Cache<Key, Entry> cache;
+    private final NgramEmbedder embedder;
+    private final boolean enabled;
+    private final float similarityThreshold;
+
+    // Secondary indexes so invalidation and similarity lookups don't scan the cache
+    private final Map<Long, Set<Key>> keysByGroup = new ConcurrentHashMap<>();
+    private final Map<Scope, Set<Key>> keysByScope = new ConcurrentHashMap<>();
+
+    private final Counter exactHits;
+    private final Counter similarHits;
+    private final Counter misses;
+
+    public ChatResponseCache(NgramEmbedder embedder,
+            MeterRegistry meterRegistry,
+            @Value("${premzone.chat.response-cache.enabled:true}") boolean enabled,
+            @Value("${premzone.chat.response-cache.ttl:30m}") Duration ttl,
+            @Value("${premzone.chat.response-cache.max-size:5000}") long maxSize,
+            @Value("${premzone.chat.response-cache.similarity-threshold:1.0}") float similarityThreshold) {
+        this.embedder = embedder;
+        this.enabled = enabled;
+        this.similarityThreshold = similarityThreshold;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .removalListener((Key key, Entry entry, RemovalCause cause) -> unindex(key, entry))
+                .build();
+        this.exactHits = lookupCounter(meterRegistry, "hit_exact");
+        this.similarHits = lookupCounter(meterRegistry, "hit_similar");
+        this.misses = lookupCounter(meterRegistry, "miss");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Optional<String> get(Long userId, String inventoryVersion, String message) {
+        Scope scope = new Scope(userId, inventoryVersion);
+        String normalized = normalize(message);
+        Entry exact = cache.getIfPresent(new Key(scope, normalized));
+        if (exact != null) {
+            exactHits.increment();
+            return Optional.of(exact.response());
+        }
+
+        if (similarityThreshold < 1.0f) {
+            float[] vector = embedder.embed(normalized);
+            Entry best = null;
+            float bestScore = similarityThreshold;
+            for (Key key : keysByScope.getOrDefault(scope, Set.of())) {
+                Entry candidate = cache.getIfPresent(key);
+                if (candidate == null) {
+                    continue;
+                }
+                float score = NgramEmbedder.similarity(vector, candidate.vector());
+                if (score >= bestScore) {
+                    best = candidate;
+                    bestScore = score;
+                }
+            }
+            if (best != null) {
+                similarHits.increment();
+                return Optional.of(best.response());
+            }
+        }
+
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public void put(Long userId, String inventoryVersion, Set<Long> groupIds, String message, String response) {
+        if (response == null || response.isBlank()) {
+            return;
+        }
+        Scope scope = new Scope(userId, inventoryVersion);
+        String normalized = normalize(message);
+        Key key = new Key(scope, normalized);
+        float[] vector = similarityThreshold < 1.0f ? embedder.embed(normalized) : null;
+        for (Long groupId : groupIds) {
+            keysByGroup.computeIfAbsent(groupId, id -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+        keysByScope.computeIfAbsent(scope, v -> ConcurrentHashMap.newKeySet()).add(key);
+        cache.put(key, new Entry(response, Set.copyOf(groupIds), vector));
+    }
+
+    @EventListener
+    public void onGroupChanged(InventoryGroupChangedEvent event) {
+        Set<Key> keys = keysByGroup.remove(event.groupId());
+        if (keys != null) {
+            cache.invalidateAll(keys);
+        }
+    }
+
+    private void unindex(Key key, Entry entry) {
+        if (entry != null) {
+            for (Long groupId : entry.groupIds()) {
+                Set<Key> keys = keysByGroup.get(groupId);
+                if (keys != null) {
+                    keys.remove(key);
+                }
+            }
+        }
+        keysByScope.computeIfPresent(key.scope(), (v, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    static String normalize(String message) {
+        if (message == null) {
+            return "";
+        }
+        return message.toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{N}]+", " ")
+                .trim();
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("chat.response.cache")
+                .description("Chat response cache lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,10 @@
+package com.filmasticpg.premzone.chat;
+
+import java.util.List;
+
+/**
+ * One page of the chat history, newest session first. nextCursor is passed
+ * back as {@code cursor} for the next (older) page and is null on the last one.
+ */
+public record ChatSessionPage(List<ChatSessionSummary> sessions, String nextCursor) {
+}
@@ -0,0 +1,11 @@
+package com.filmasticpg.premzone.chat;
+
+import java.time.LocalDateTime;
+
+/**
+ * A session as listed in the chat history: no messages, just the start of
+ * the latest one (null for an empty session) and how many there are.
+ */
+public record ChatSessionSummary(Long id, String title, LocalDateTime createdAt, String lastMessagePreview,
+        Long messageCount) {
+}
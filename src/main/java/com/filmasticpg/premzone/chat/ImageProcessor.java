@@ -0,0 +1,130 @@
+package com.filmasticpg.premzone.chat;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Iterator;
+
+/**
+ * Turns an uploaded photo into a JPEG no larger than max-dimension on its
+ * long side, which is all the model needs and costs far fewer vision tokens.
+ *
+ * Memory stays bounded by the target size rather than the upload: the image
+ * is read from a stream (ImageIO spills it to a temp file, not the heap), its
+ * dimensions come from the header before anything is decoded, and decoding
+ * uses source subsampling so at most about twice the target resolution is
+ * ever materialised. Images over max-pixels are rejected up front.
+ */
+@Component
+public class ImageProcessor {
+
+    private final int maxDimension;
+    private final long maxPixels;
+    private final float jpegQuality;
+
+    public ImageProcessor(@Value("${premzone.chat.image.max-dimension:1536}") int maxDimension,
+            @Value("${premzone.chat.image.max-pixels:50000000}") long maxPixels,
+            @Value("${premzone.chat.image.jpeg-quality:0.85}") float jpegQuality) {
+        this.maxDimension = maxDimension;
+        this.maxPixels = maxPixels;
+        this.jpegQuality = jpegQuality;
+    }
+
+    /**
+     * Reads, downscales and re-encodes the image. The format is detected from
+     * the data. Throws IllegalArgumentException if it can't be read.
+     */
+    public ProcessedImage process(InputStream input) {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(input)) {
+            if (stream == null)
+                throw new IllegalArgumentException("Could not read image");
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext())
+                throw new IllegalArgumentException("Unsupported image format");
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels)
+                    throw new IllegalArgumentException("Image is too large: " + width + "x" + height);
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.max(width, height) / maxDimension);
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return encode(scale(reader.read(0, param)));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read image: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Same as {@link #process} for the base64 strings of the JSON chat API,
+     * decoded as a stream instead of into a second full-size byte array.
+     * Returns null for a missing or empty string.
+     */
+    public ProcessedImage processBase64(String base64Image) {
+        if (base64Image == null || base64Image.isEmpty())
+            return null;
+        return process(Base64.getDecoder()
+                .wrap(new ByteArrayInputStream(base64Image.getBytes(StandardCharsets.ISO_8859_1))));
+    }
+
+    private BufferedImage scale(BufferedImage source) {
+        double factor = Math.min(1.0, (double) maxDimension / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * factor));
+
+        // JPEG has no alpha, so transparent areas end up white
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private ProcessedImage encode(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return new ProcessedImage(out.toByteArray(), MimeTypeUtils.IMAGE_JPEG, image.getWidth(), image.getHeight());
+    }
+}
@@ -0,0 +1,236 @@
+package com.filmasticpg.premzone.chat;
+
+import com.filmasticpg.premzone.group.InventoryGroup;
+import com.filmasticpg.premzone.item.InventoryItemRepository;
+import com.filmasticpg.premzone.item.ItemContextRow;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Builds the textual inventory context that goes into the AI prompt.
+ * Each group's rendered item lines are cached together with the group's
+ * persisted content version they were built at (InventoryGroup.contentVersion,
+ * see GroupVersionService); on each chat turn only groups whose version moved
+ * are reloaded, all of them with a single query. The version comes with the
+ * groups the caller already loaded, and is bumped by writes on any node, so
+ * no snapshot outlives a change made elsewhere.
+ */
+@Service
+public class InventoryContextService {
+
+    static final int EXPIRING_SOON_DAYS = 7;
+
+    // vector embeds the item's name and category (see NgramEmbedder)
+    record ContextItem(ItemContextRow row, String line, float[] vector) {
+    }
+
+    record GroupSnapshot(long version, String header, List<ContextItem> items) {
+    }
+
+    // inventory goes before the history, relevantItems (may be null) after it
+    public record InventoryContext(String inventory, String relevantItems) {
+    }
+
+    private final InventoryItemRepository inventoryItemRepository;
+    private final NgramEmbedder embedder;
+    private final Cache<Long, GroupSnapshot> snapshots;
+    private final int maxItems;
+    private final float minSimilarity;
+
+    public InventoryContextService(InventoryItemRepository inventoryItemRepository,
+            NgramEmbedder embedder,
+            MeterRegistry meterRegistry,
+            @Value("${premzone.chat.context.max-items:60}") int maxItems,
+            @Value("${premzone.chat.context.min-similarity:0.1}") float minSimilarity,
+            @Value("${premzone.chat.context.cache-size:10000}") long cacheSize) {
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.embedder = embedder;
+        this.maxItems = maxItems;
+        this.minSimilarity = minSimilarity;
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots, "inventory.context");
+    }
+
+    /**
+     * Just the user's groups and their IDs, for prompts where the model looks
+     * items up through tools instead of getting the full listing.
+     */
+    public String buildGroupDirectory(List<InventoryGroup> groups) {
+        if (groups.isEmpty()) {
+            return "Inventory is empty.";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (InventoryGroup group : groups) {
+            sb.append("Group: ").append(group.getGroupName()).append(" [ID: ").append(group.getId()).append("]\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Inventory context for the given groups (the current user's). When the
+     * inventory is larger than max-items, {@code inventory} keeps only the
+     * items expiring soon, which depend on the inventory alone, so that part
+     * of the prompt stays cacheable. The max-items entries most similar to
+     * {@code query} go into {@code relevantItems}, to be placed after the
+     * history. relevantItems is null when everything fits in inventory.
+     */
+    public InventoryContext buildContext(List<InventoryGroup> userGroups, String query) {
+        List<GroupSnapshot> groups = snapshotsFor(userGroups);
+        int totalItems = groups.stream().mapToInt(g -> g.items().size()).sum();
+        if (groups.isEmpty()) {
+            return new InventoryContext("Inventory is empty.", null);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        if (totalItems <= maxItems) {
+            for (GroupSnapshot group : groups) {
+                sb.append(group.header());
+                group.items().forEach(item -> sb.append(item.line()));
+            }
+            return new InventoryContext(sb.toString(), null);
+        }
+
+        int expiring = 0;
+        for (GroupSnapshot group : groups) {
+            sb.append(group.header());
+            for (ContextItem item : group.items()) {
+                if (isExpiringSoon(item)) {
+                    sb.append(item.line());
+                    expiring++;
+                }
+            }
+        }
+        sb.append("(Only items expiring soon are listed here. ").append(totalItems - expiring)
+                .append(" other items are not; the ones relevant to the user's latest message are listed"
+                        + " right before it.)\n");
+
+        Set<ContextItem> relevant = selectRelevant(groups, query);
+        StringBuilder relevantItems = new StringBuilder();
+        for (GroupSnapshot group : groups) {
+            String header = group.header();
+            for (ContextItem item : group.items()) {
+                if (relevant.contains(item)) {
+                    relevantItems.append(header).append(item.line());
+                    header = "";
+                }
+            }
+        }
+        if (relevantItems.isEmpty()) {
+            relevantItems.append("No other items match this message. Ask the user if you need something specific.\n");
+        }
+        return new InventoryContext(sb.toString(), relevantItems.toString());
+    }
+
+    List<GroupSnapshot> snapshotsFor(List<InventoryGroup> groups) {
+        Map<Long, GroupSnapshot> resolved = new HashMap<>();
+        Map<Long, Long> staleVersions = new HashMap<>();
+        for (InventoryGroup group : groups) {
+            // The groups were read before the items are, so a concurrent change
+            // makes this snapshot stale rather than silently lost
+            long version = group.getContentVersion();
+            GroupSnapshot cached = snapshots.getIfPresent(group.getId());
+            if (cached != null && cached.version() == version) {
+                resolved.put(group.getId(), cached);
+            } else {
+                staleVersions.put(group.getId(), version);
+            }
+        }
+
+        if (!staleVersions.isEmpty()) {
+            // Previous vectors by item id, so unchanged items aren't re-embedded
+            Map<Long, ContextItem> previous = new HashMap<>();
+            for (Long groupId : staleVersions.keySet()) {
+                GroupSnapshot old = snapshots.getIfPresent(groupId);
+                if (old != null) {
+                    old.items().forEach(item -> previous.put(item.row().id(), item));
+                }
+            }
+
+            Map<Long, List<ContextItem>> itemsByGroup = new HashMap<>();
+            for (ItemContextRow row : inventoryItemRepository.findContextRowsByGroupIds(staleVersions.keySet())) {
+                itemsByGroup.computeIfAbsent(row.groupId(), id -> new ArrayList<>())
+                        .add(new ContextItem(row, row.toPromptLine(), vectorFor(row, previous.get(row.id()))));
+            }
+            for (InventoryGroup group : groups) {
+                Long version = staleVersions.get(group.getId());
+                if (version == null) {
+                    continue;
+                }
+                GroupSnapshot snapshot = new GroupSnapshot(version,
+                        "Group: " + group.getGroupName() + " [ID: " + group.getId() + "]\n",
+                        List.copyOf(itemsByGroup.getOrDefault(group.getId(), List.of())));
+                snapshots.put(group.getId(), snapshot);
+                resolved.put(group.getId(), snapshot);
+            }
+        }
+
+        List<GroupSnapshot> ordered = new ArrayList<>(groups.size());
+        for (InventoryGroup group : groups) {
+            ordered.add(resolved.get(group.getId()));
+        }
+        return ordered;
+    }
+
+    /**
+     * The max-items items most similar to the query, leaving out those
+     * expiring soon, which are already in the inventory part.
+     */
+    private Set<ContextItem> selectRelevant(List<GroupSnapshot> groups, String query) {
+        float[] queryVector = embedder.embed(query);
+
+        // Min-heap on similarity holding the current top max-items candidates
+        PriorityQueue<Map.Entry<ContextItem, Float>> top = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (GroupSnapshot group : groups) {
+            for (ContextItem item : group.items()) {
+                if (isExpiringSoon(item)) {
+                    continue;
+                }
+                float score = NgramEmbedder.similarity(queryVector, item.vector());
+                if (score < minSimilarity) {
+                    continue;
+                }
+                if (top.size() < maxItems) {
+                    top.add(Map.entry(item, score));
+                } else if (score > top.peek().getValue()) {
+                    top.poll();
+                    top.add(Map.entry(item, score));
+                }
+            }
+        }
+        Set<ContextItem> selected = new HashSet<>();
+        for (Map.Entry<ContextItem, Float> entry : top) {
+            selected.add(entry.getKey());
+        }
+        return selected;
+    }
+
+    private static boolean isExpiringSoon(ContextItem item) {
+        LocalDate expiry = item.row().expiryDate();
+        return expiry != null && !expiry.isAfter(LocalDate.now().plusDays(EXPIRING_SOON_DAYS));
+    }
+
+    private float[] vectorFor(ItemContextRow row, ContextItem previous) {
+        if (previous != null && Objects.equals(previous.row().name(), row.name())
+                && Objects.equals(previous.row().categoryName(), row.categoryName())) {
+            return previous.vector();
+        }
+        return embedder.embed(row.name() + " " + (row.categoryName() != null ? row.categoryName() : ""));
+    }
+}
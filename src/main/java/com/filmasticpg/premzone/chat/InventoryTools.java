@@ -0,0 +1,95 @@
+package com.filmasticpg.premzone.chat;
+
+import com.filmasticpg.premzone.item.InventoryItemService;
+import com.filmasticpg.premzone.item.ItemContextRow;
+import org.springframework.ai.model.function.FunctionCallback;
+import org.springframework.ai.model.function.FunctionCallbackWrapper;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Function callbacks that let the model look up inventory on demand instead
+ * of receiving the whole listing in the system prompt. Callbacks are built
+ * per chat turn and only ever see the groups the current user belongs to.
+ */
+@Component
+public class InventoryTools {
+
+    private static final int MAX_RESULTS = 50;
+
+    public record SearchItemsRequest(String query) {
+    }
+
+    public record ExpiringItemsRequest(Integer days) {
+    }
+
+    // cursor is the nextCursor of the previous page, null for the first one
+    public record GroupItemsRequest(Long groupId, Integer limit, Long cursor) {
+    }
+
+    private final InventoryItemService inventoryItemService;
+
+    public InventoryTools(InventoryItemService inventoryItemService) {
+        this.inventoryItemService = inventoryItemService;
+    }
+
+    public List<FunctionCallback> forGroups(Set<Long> groupIds) {
+        FunctionCallback searchItems = FunctionCallbackWrapper.<SearchItemsRequest, String>builder(
+                request -> render(inventoryItemService.searchItemRows(groupIds, request.query(), MAX_RESULTS)))
+                .withName("searchItems")
+                .withDescription("Search the user's inventory by item name or category. "
+                        + "Returns matching items with ID, quantity, category and expiry date.")
+                .withInputType(SearchItemsRequest.class)
+                .build();
+
+        FunctionCallback listExpiringItems = FunctionCallbackWrapper.<ExpiringItemsRequest, String>builder(
+                request -> {
+                    int days = request.days() != null ? request.days() : InventoryContextService.EXPIRING_SOON_DAYS;
+                    return render(inventoryItemService.getExpiringItemRows(groupIds, days, MAX_RESULTS));
+                })
+                .withName("listExpiringItems")
+                .withDescription("List items that expire within the given number of days (default 7), "
+                        + "including already expired ones, soonest first.")
+                .withInputType(ExpiringItemsRequest.class)
+                .build();
+
+        FunctionCallback getItemsByGroup = FunctionCallbackWrapper.<GroupItemsRequest, String>builder(
+                request -> {
+                    if (request.groupId() == null || !groupIds.contains(request.groupId())) {
+                        return "Unknown group ID.";
+                    }
+                    int limit = request.limit() != null ? Math.max(1, Math.min(request.limit(), MAX_RESULTS))
+                            : MAX_RESULTS;
+                    // One extra row tells whether there is another page
+                    List<ItemContextRow> rows = inventoryItemService.getItemRowsByGroup(request.groupId(),
+                            request.cursor(), limit + 1);
+                    if (rows.size() <= limit) {
+                        return render(rows);
+                    }
+                    rows = rows.subList(0, limit);
+                    return render(rows) + "More items in this group; call getItemsByGroup again with nextCursor "
+                            + rows.get(limit - 1).id() + ".\n";
+                })
+                .withName("getItemsByGroup")
+                .withDescription("List the items in one of the user's groups, in pages of up to " + MAX_RESULTS
+                        + " (limit). If the result says there are more, pass its nextCursor as cursor to get"
+                        + " the next page. Prefer searchItems when looking for something specific.")
+                .withInputType(GroupItemsRequest.class)
+                .build();
+
+        return List.of(searchItems, listExpiringItems, getItemsByGroup);
+    }
+
+    private static String render(List<ItemContextRow> rows) {
+        if (rows.isEmpty()) {
+            return "No matching items.";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (ItemContextRow row : rows) {
+            sb.append(row.toPromptLine());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,74 @@
+package com.filmasticpg.premzone.chat;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Small, deterministic text embedding based on hashed character trigrams
+ * (the "hashing trick"). No model or network is involved, so it behaves the
+ * same offline and in tests. Good enough to rank item names and categories
+ * against a chat message; not meant for general semantic search.
+ */
+@Component
+public class NgramEmbedder {
+
+    private static final int BUCKET_BITS = 8;
+    static final int DIMENSIONS = 1 << BUCKET_BITS;
+
+    /**
+     * L2-normalised vector for the text, so the dot product of two vectors is
+     * their cosine similarity. Blank text maps to the zero vector.
+     */
+    public float[] embed(String text) {
+        float[] vector = new float[DIMENSIONS];
+        if (text == null || text.isBlank()) {
+            return vector;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = " " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                add(vector, padded.substring(i, i + 3).hashCode(), 1f);
+            }
+            // Whole words count a bit more than any single trigram
+            add(vector, word.hashCode(), 1.5f);
+        }
+        normalize(vector);
+        return vector;
+    }
+
+    public static float similarity(float[] a, float[] b) {
+        float dot = 0f;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+
+    private static void add(float[] vector, int hash, float weight) {
+        // Fibonacci hashing: the multiply mixes every input bit into the high
+        // bits only (the low bits depend on the low bits alone), so the bucket
+        // is taken from the top
+        int h = hash * 0x9E3779B9;
+        int bucket = h >>> (32 - BUCKET_BITS);
+        // Signed hashing keeps unrelated collisions from always adding up
+        vector[bucket] += ((h >>> (31 - BUCKET_BITS)) & 1) == 0 ? weight : -weight;
+    }
+
+    private static void normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm == 0) {
+            return;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.filmasticpg.premzone.chat;
+
+import org.springframework.ai.model.Media;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.util.MimeType;
+
+/**
+ * An uploaded image after downscaling and recompression, ready to be
+ * attached to a model call.
+ */
+public record ProcessedImage(byte[] data, MimeType mimeType, int width, int height) {
+
+    public Media toMedia() {
+        return new Media(mimeType, new ByteArrayResource(data));
+    }
+}
@@ -0,0 +1,173 @@
+package com.filmasticpg.premzone.chat;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lays out the chat prompt so that its beginning is as stable as possible
+ * between calls, which is what provider-side prompt caching keys on:
+ *
+ * 1. static instructions (byte-identical on every call, for every user)
+ * 2. context block (date + inventory, changes only when the inventory does)
+ * 3. conversation history (summary + recent turns)
+ * 4. items picked for the new message, if any (see InventoryContextService)
+ * 5. the new user message
+ *
+ * It also estimates tokens per section and records metrics for them.
+ */
+@Component
+public class PromptAssembler {
+
+    // Must not contain anything per-user or per-call; see class comment
+    static final String STATIC_INSTRUCTIONS = """
+            You are a chill, Gen Z roommate/friend. You help the user manage their inventory and cook stuff.
+            Don't be formal. Use casual language (e.g., "No cap", "Bet", "Yo").
+            The CONTEXT message that follows has the current date and the user's inventory.
+            For large inventories, a RELEVANT ITEMS message right before the user's latest message lists more of their items.
+
+            RULES:
+            1. Suggest recipes based on what the user has.
+            2. Prioritize items expiring within 7 days. Mention them explicitly (e.g. "Yo, your milk is expiring soon").
+            3. Check for specific tools (Category: 'Electronic' or 'Kitchenware'). If available, mention them in **bold** (e.g. "Use your **Air Fryer**").
+            4. If the user accepts a suggestion or asks to remove items, provide a JSON PROPOSAL at the end of your response inside a code block.
+
+            PROPOSAL FORMAT:
+            ```json
+            {
+               "action": "REDUCE_QUANTITY",
+               "items": [
+                  {"id": 123, "name": "Milk", "quantity": 2},
+                  {"id": 456, "name": "Eggs", "quantity": 1}
+               ]
+            }
+            ```
+            OR
+            ```json
+            {
+               "action": "ADD_ITEMS",
+               "items": [
+                  {
+                    "name": "Milk",
+                    "quantity": 1,
+                    "groupId": 1,
+                    "category": "Dairy",
+                    "expiryDate": "2024-12-31",
+                    "type": "Food"
+                  }
+               ]
+            }
+            ```
+
+            RULES FOR ADDING:
+            1. If the user provides a list or image of items, use "ADD_ITEMS".
+            2. Pick the most relevant Group ID from context. If unsure, use the first one.
+            3. **ESTIMATE** details if not provided:
+               - `category`: Infer from name (e.g., Apple -> Produce/Food, Tylenol -> Medical).
+               - `expiryDate`: ESTIMATE for Food/Medical. (Milk: +7 days, Veggies: +5 days, Canned: +1 year). Format YYYY-MM-DD.
+               - `type`: 'Food', 'Medical', 'Electronics', 'Supply', 'Pantry'.
+            4. For Images: Analyze the image to identify items and quantities.
+
+            NEVER propose removing Non-Consumable items (like Tools) unless explicitly asked to.
+            For recipes, only reduce Ingredients (Food/Pantry).
+            IMPORTANT: You MUST include the exact "name" of the item in the JSON so the user knows what is being removed.
+            """;
+
+    private static final SystemMessage STATIC_MESSAGE = new SystemMessage(STATIC_INSTRUCTIONS);
+    private static final int STATIC_TOKENS = estimateTokens(STATIC_INSTRUCTIONS);
+
+    private final DistributionSummary staticTokens;
+    private final DistributionSummary contextTokens;
+    private final DistributionSummary historyTokens;
+    private final DistributionSummary relevantTokens;
+    private final DistributionSummary messageTokens;
+    private final Counter prefixReused;
+    private final Counter prefixChanged;
+
+    // Hash of the last context block sent per session. Entries live about as
+    // long as a provider cache entry would.
+    private final Cache<Long, Integer> lastContextHash = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .maximumSize(10_000)
+            .build();
+
+    public PromptAssembler(MeterRegistry meterRegistry) {
+        this.staticTokens = sectionSummary(meterRegistry, "static");
+        this.contextTokens = sectionSummary(meterRegistry, "context");
+        this.historyTokens = sectionSummary(meterRegistry, "history");
+        this.relevantTokens = sectionSummary(meterRegistry, "relevant");
+        this.messageTokens = sectionSummary(meterRegistry, "message");
+        // Both tags share one meter name, so they must share the description
+        this.prefixReused = Counter.builder("chat.prompt.prefix")
+                .description("Prompts by whether their static + context prefix matched the session's previous prompt")
+                .tag("result", "reused")
+                .register(meterRegistry);
+        this.prefixChanged = Counter.builder("chat.prompt.prefix")
+                .description("Prompts by whether their static + context prefix matched the session's previous prompt")
+                .tag("result", "changed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds the message list in cache-friendly order. {@code sessionId} is only
+     * used to track whether the prefix changed since the session's last call.
+     * relevantItems may be null.
+     */
+    public List<Message> assemble(Long sessionId, String inventoryContext, String relevantItems,
+            List<Message> history, Message userMessage) {
+        String contextText = "CONTEXT:\nCurrent Date: " + LocalDate.now() + "\nUser's Inventory:\n" + inventoryContext;
+        String relevantText = relevantItems != null ? "RELEVANT ITEMS:\n" + relevantItems : null;
+
+        List<Message> messages = new ArrayList<>(history.size() + 4);
+        messages.add(STATIC_MESSAGE);
+        messages.add(new SystemMessage(contextText));
+        messages.addAll(history);
+        if (relevantText != null) {
+            messages.add(new SystemMessage(relevantText));
+        }
+        messages.add(userMessage);
+
+        staticTokens.record(STATIC_TOKENS);
+        contextTokens.record(estimateTokens(contextText));
+        int historyTotal = 0;
+        for (Message message : history) {
+            historyTotal += estimateTokens(message.getContent());
+        }
+        historyTokens.record(historyTotal);
+        relevantTokens.record(estimateTokens(relevantText));
+        messageTokens.record(estimateTokens(userMessage.getContent()));
+
+        Integer previous = lastContextHash.asMap().put(sessionId, contextText.hashCode());
+        if (previous != null && previous == contextText.hashCode()) {
+            prefixReused.increment();
+        } else {
+            prefixChanged.increment();
+        }
+        return messages;
+    }
+
+    /**
+     * Rough token estimate (~4 characters per token for English text). Good
+     * enough for budgeting without pulling in a tokenizer.
+     */
+    public static int estimateTokens(String text) {
+        return text == null ? 0 : (text.length() + 3) / 4;
+    }
+
+    private static DistributionSummary sectionSummary(MeterRegistry meterRegistry, String section) {
+        return DistributionSummary.builder("chat.prompt.section.tokens")
+                .description("Estimated prompt tokens per section")
+                .tag("section", section)
+                .register(meterRegistry);
+    }
+}
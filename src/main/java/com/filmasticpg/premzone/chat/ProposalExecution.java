@@ -0,0 +1,13 @@
+package com.filmasticpg.premzone.chat;
+
+import com.filmasticpg.premzone.item.ItemOperationResult;
+
+import java.util.List;
+
+/**
+ * Result of executing an AI proposal: one entry per proposed item, in
+ * proposal order. alreadyExecuted is true when the message's proposal had
+ * been executed before and these are the results of that earlier run.
+ */
+public record ProposalExecution(boolean alreadyExecuted, List<ItemOperationResult> items) {
+}
@@ -5,7 +5,7 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "chat_message")
+@Table(name = "chat_message", indexes = @Index(name = "idx_chat_message_session_id", columnList = "session_id, id"))
 public class ChatMessage {
 
     @Id
@@ -25,6 +25,15 @@ public class ChatMessage {
 
     private LocalDateTime timestamp;
 
+    // Set once the proposal in this message has been executed, with the
+    // per-item results (JSON) returned to any retry
+    @JsonIgnore
+    private LocalDateTime executedAt;
+
+    @Column(columnDefinition = "TEXT")
+    @JsonIgnore
+    private String executionResult;
+
     public ChatMessage() {
         this.timestamp = LocalDateTime.now();
     }
@@ -77,4 +86,20 @@ public class ChatMessage {
     public void setTimestamp(LocalDateTime timestamp) {
         this.timestamp = timestamp;
     }
+
+    public LocalDateTime getExecutedAt() {
+        return executedAt;
+    }
+
+    public void setExecutedAt(LocalDateTime executedAt) {
+        this.executedAt = executedAt;
+    }
+
+    public String getExecutionResult() {
+        return executionResult;
+    }
+
+    public void setExecutionResult(String executionResult) {
+        this.executionResult = executionResult;
+    }
 }
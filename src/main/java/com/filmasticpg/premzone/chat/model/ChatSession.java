@@ -8,7 +8,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "chat_session")
+@Table(name = "chat_session", indexes = @Index(name = "idx_chat_session_user_id", columnList = "user_id, id"))
 public class ChatSession {
 
     @Id
@@ -24,7 +24,23 @@ public class ChatSession {
 
     private LocalDateTime createdAt;
 
+    // Rolling summary of messages that no longer fit in the prompt window
+    @Column(columnDefinition = "TEXT")
+    @JsonIgnore
+    private String summary;
+
+    // Id of the newest message folded into the summary
+    @Column(name = "summarized_up_to_id")
+    @JsonIgnore
+    private Long summarizedUpToId;
+
+    // Per-session opt-out of the chat response cache (null = enabled)
+    @Column(name = "response_cache_enabled")
+    private Boolean responseCacheEnabled;
+
+    // Paged through GET /api/v1/chat/{id}/messages rather than serialized with the session
     @OneToMany(mappedBy = "session", cascade = CascadeType.ALL, orphanRemoval = true)
+    @JsonIgnore
     private List<ChatMessage> messages = new ArrayList<>();
 
     public ChatSession() {
@@ -65,6 +81,30 @@ public class ChatSession {
         this.createdAt = createdAt;
     }
 
+    public String getSummary() {
+        return summary;
+    }
+
+    public void setSummary(String summary) {
+        this.summary = summary;
+    }
+
+    public Long getSummarizedUpToId() {
+        return summarizedUpToId;
+    }
+
+    public void setSummarizedUpToId(Long summarizedUpToId) {
+        this.summarizedUpToId = summarizedUpToId;
+    }
+
+    public boolean isResponseCacheEnabled() {
+        return !Boolean.FALSE.equals(responseCacheEnabled);
+    }
+
+    public void setResponseCacheEnabled(Boolean responseCacheEnabled) {
+        this.responseCacheEnabled = responseCacheEnabled;
+    }
+
     public List<ChatMessage> getMessages() {
         return messages;
     }
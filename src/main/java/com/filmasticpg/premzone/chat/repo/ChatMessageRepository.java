@@ -1,12 +1,42 @@
 package com.filmasticpg.premzone.chat.repo;
 
 import com.filmasticpg.premzone.chat.model.ChatMessage;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
     List<ChatMessage> findBySessionIdOrderByTimestampAsc(Long sessionId);
+
+    // Latest K messages of a session (newest first), used for the prompt window
+    List<ChatMessage> findBySessionIdOrderByIdDesc(Long sessionId, Limit limit);
+
+    // Messages before beforeId, newest first, for paging back through a session
+    List<ChatMessage> findBySessionIdAndIdLessThanOrderByIdDesc(Long sessionId, Long beforeId, Limit limit);
+
+    // Messages that fell out of the window and still need summarizing
+    List<ChatMessage> findBySessionIdAndIdBetweenOrderByIdAsc(Long sessionId, Long fromId, Long toId, Limit limit);
+
+    // Same range newest first, for the messages just before the window
+    List<ChatMessage> findBySessionIdAndIdBetweenOrderByIdDesc(Long sessionId, Long fromId, Long toId, Limit limit);
+
+    long countBySessionId(Long sessionId);
+
+    // Session of a message, without loading the message itself
+    @Query("select m.session.id from ChatMessage m where m.id = :id")
+    Optional<Long> findSessionIdById(@Param("id") Long id);
+
+    // Marks the message's proposal as executed if nobody has yet; the row lock
+    // makes a concurrent claim wait for this transaction and then match nothing
+    @Modifying
+    @Query("update ChatMessage m set m.executedAt = :now where m.id = :id and m.executedAt is null")
+    int claimExecution(@Param("id") Long id, @Param("now") LocalDateTime now);
 }
@@ -1,13 +1,30 @@
 package com.filmasticpg.premzone.chat.repo;
 
+import com.filmasticpg.premzone.chat.ChatSessionSummary;
 import com.filmasticpg.premzone.chat.model.ChatSession;
-import com.filmasticpg.premzone.user.AppUser;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
 public interface ChatSessionRepository extends JpaRepository<ChatSession, Long> {
-    List<ChatSession> findByUserOrderByCreatedAtDesc(AppUser user);
+    // A page of the user's sessions older than beforeId, newest first. Preview
+    // and count are per-session subqueries on the (session_id, id) index, so
+    // the cost depends on the page, not on the user's total history
+    @Query("""
+            select new com.filmasticpg.premzone.chat.ChatSessionSummary(
+                s.id, s.title, s.createdAt,
+                (select substring(m.content, 1, 120) from ChatMessage m
+                    where m.id = (select max(last.id) from ChatMessage last where last.session = s)),
+                (select count(c) from ChatMessage c where c.session = s))
+            from ChatSession s
+            where s.user.id = :userId and s.id < :beforeId
+            order by s.id desc
+            """)
+    List<ChatSessionSummary> findSummariesByUserId(@Param("userId") Long userId, @Param("beforeId") Long beforeId,
+            Limit limit);
 }
@@ -7,10 +7,16 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 @Component
 public class UserContext {
 
+    // Request attribute used to memoize the resolved user for the rest of the
+    // request
+    private static final String CURRENT_USER_ATTRIBUTE = UserContext.class.getName() + ".CURRENT_USER";
+
     @Autowired
     private UserService userService;
 
@@ -25,6 +31,19 @@ public class UserContext {
         }
 
         Jwt jwt = (Jwt) authentication.getPrincipal();
-        return userService.syncUser(jwt);
+
+        // Several services resolve the user more than once per request, so only
+        // sync the first time
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null
+                && attributes.getAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof AppUser user) {
+            return user;
+        }
+
+        AppUser user = userService.syncUser(jwt);
+        if (attributes != null) {
+            attributes.setAttribute(CURRENT_USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
     }
 }
@@ -0,0 +1,8 @@
+package com.filmasticpg.premzone.group;
+
+/**
+ * The persisted content version of a group, see
+ * {@link GroupVersionService#etag}.
+ */
+public record GroupContentVersion(Long groupId, long version) {
+}
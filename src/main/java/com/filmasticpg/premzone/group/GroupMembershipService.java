@@ -0,0 +1,86 @@
+package com.filmasticpg.premzone.group;
+
+import com.filmasticpg.premzone.config.UserContext;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Answers "is this user in that group" from a cached set of group IDs per
+ * user, loaded with one ID-only query and never touching
+ * InventoryGroup.members. Entries are dropped on join, leave and delete (once
+ * more when the transaction completes, so no reader can re-cache a stale set);
+ * the TTL only bounds how long a change made outside the app can go unseen.
+ */
+@Service
+public class GroupMembershipService {
+
+    private final InventoryGroupRepository inventoryGroupRepository;
+    private final UserContext userContext;
+    private final Cache<Long, Set<Long>> groupIdsByUser;
+
+    public GroupMembershipService(InventoryGroupRepository inventoryGroupRepository,
+            UserContext userContext,
+            MeterRegistry meterRegistry,
+            @Value("${premzone.membership.cache-size:10000}") long maxSize,
+            @Value("${premzone.membership.ttl:10m}") Duration ttl) {
+        this.inventoryGroupRepository = inventoryGroupRepository;
+        this.userContext = userContext;
+        this.groupIdsByUser = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, groupIdsByUser, "group-membership");
+    }
+
+    /** IDs of the groups the user belongs to, as an immutable set. */
+    public Set<Long> getGroupIds(Long userId) {
+        return groupIdsByUser.get(userId, id -> Set.copyOf(inventoryGroupRepository.findGroupIdsByMemberId(id)));
+    }
+
+    public Set<Long> getCurrentUserGroupIds() {
+        return getGroupIds(userContext.getCurrentUser().getId());
+    }
+
+    public boolean isMember(Long userId, Long groupId) {
+        return groupId != null && getGroupIds(userId).contains(groupId);
+    }
+
+    /**
+     * Fails with 403 unless the current user belongs to the group.
+     */
+    public void requireMember(Long groupId) {
+        if (!isMember(userContext.getCurrentUser().getId(), groupId))
+            throw new AccessDeniedException("User is not a member of this group");
+    }
+
+    public void invalidate(Long userId) {
+        invalidate(List.of(userId));
+    }
+
+    public void invalidate(Collection<Long> userIds) {
+        groupIdsByUser.invalidateAll(userIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<Long> ids = List.copyOf(userIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    // Also on rollback: a read inside the transaction may have cached its uncommitted state
+                    groupIdsByUser.invalidateAll(ids);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.filmasticpg.premzone.group;
+
+/**
+ * Dashboard view of a group: its identity plus counts, without the member
+ * list or the creator. expiringSoonCount covers the window the summary was
+ * requested for.
+ */
+public record GroupSummary(Long id, String groupName, String joinCode, Integer memberCount, Long itemCount,
+        Long expiringSoonCount) {
+}
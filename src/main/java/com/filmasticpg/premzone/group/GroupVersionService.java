@@ -0,0 +1,104 @@
+package com.filmasticpg.premzone.group;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks a version number per inventory group that goes up every time the
+ * group's items or members change, in two places:
+ *
+ * - InventoryGroup.contentVersion, incremented in the writing transaction.
+ *   The HTTP ETags of the group and item listings and the chat's inventory
+ *   context snapshots are keyed on it, so they are right whichever node
+ *   served the write.
+ * - An in-memory counter bumped after commit, which this node's other caches
+ *   (suggestions, chat replies) compare against without a query. A write on
+ *   another node doesn't reach it; those caches rely on their TTLs for that.
+ */
+@Service
+public class GroupVersionService {
+
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final InventoryGroupRepository inventoryGroupRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public GroupVersionService(InventoryGroupRepository inventoryGroupRepository,
+            ApplicationEventPublisher eventPublisher) {
+        this.inventoryGroupRepository = inventoryGroupRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public long currentVersion(Long groupId) {
+        return versions.computeIfAbsent(groupId, id -> new AtomicLong()).get();
+    }
+
+    /**
+     * Combined version of several groups, e.g. everything a user can see.
+     * Changes whenever any of the groups changes.
+     */
+    public String fingerprint(Collection<Long> groupIds) {
+        List<Long> sorted = new ArrayList<>(groupIds);
+        Collections.sort(sorted);
+        StringBuilder sb = new StringBuilder();
+        for (Long groupId : sorted) {
+            sb.append(groupId).append(':').append(currentVersion(groupId)).append(';');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Strong ETag for a response built only from the given groups, derived
+     * from their persisted versions. Costs one query on inventory_group; no
+     * items or members are read.
+     */
+    public String etag(Collection<Long> groupIds) {
+        StringBuilder sb = new StringBuilder();
+        if (!groupIds.isEmpty()) {
+            for (GroupContentVersion v : inventoryGroupRepository.findContentVersions(groupIds)) {
+                sb.append(v.groupId()).append(':').append(v.version()).append(';');
+            }
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(sb.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Increments the group's persisted version as part of the current
+     * transaction, and bumps the in-memory version once it commits (or right
+     * away if there is none), so readers never cache uncommitted state under
+     * the new version. The increment locks the group row until commit, which
+     * orders concurrent writes to the same group.
+     */
+    public void markChanged(Long groupId) {
+        if (groupId == null) {
+            return;
+        }
+        inventoryGroupRepository.incrementContentVersion(groupId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(groupId);
+                }
+            });
+        } else {
+            bump(groupId);
+        }
+    }
+
+    private void bump(Long groupId) {
+        long version = versions.computeIfAbsent(groupId, id -> new AtomicLong()).incrementAndGet();
+        eventPublisher.publishEvent(new InventoryGroupChangedEvent(groupId, version));
+    }
+}
@@ -0,0 +1,135 @@
+package com.filmasticpg.premzone.group;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans committed item changes out to the subscribers of each group's feed.
+ *
+ * A group has one channel while anyone is subscribed to it. Publishing hands
+ * the event to every subscriber's own bounded buffer and never waits on a
+ * client; a subscriber whose buffer fills up (a client that stopped reading)
+ * is disconnected and is expected to reconnect and reload. An idle
+ * subscriber holds no thread, only its (empty) buffer.
+ */
+@Component
+public class InventoryChangeFeed {
+
+    private static final class Channel {
+        final Sinks.Many<ItemChangeEvent> sink = Sinks.many().multicast().directBestEffort();
+        // Only touched inside channels.compute, which locks the group's entry
+        int subscribers;
+    }
+
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+    private final GroupVersionService groupVersionService;
+    private final int bufferSize;
+    private final Flux<Long> heartbeat;
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter slowDisconnects;
+
+    public InventoryChangeFeed(GroupVersionService groupVersionService,
+            MeterRegistry meterRegistry,
+            @Value("${premzone.feed.buffer-size:256}") int bufferSize,
+            @Value("${premzone.feed.heartbeat:25s}") Duration heartbeat) {
+        this.groupVersionService = groupVersionService;
+        this.bufferSize = bufferSize;
+        // One timer shared by all subscribers instead of one each
+        this.heartbeat = Flux.interval(heartbeat, heartbeat).share();
+        meterRegistry.gauge("inventory.feed.subscribers", subscriberCount);
+        this.slowDisconnects = Counter.builder("inventory.feed.disconnects")
+                .description("Feed subscribers dropped for not keeping up")
+                .tag("reason", "slow")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Changes to the group from the moment of subscription on. Completes
+     * (rather than blocking publishers) if the subscriber falls more than the
+     * buffer size behind.
+     */
+    public Flux<ItemChangeEvent> subscribe(Long groupId) {
+        return Flux.defer(() -> {
+            Channel channel = channels.compute(groupId, (id, existing) -> {
+                Channel c = existing != null ? existing : new Channel();
+                c.subscribers++;
+                return c;
+            });
+            subscriberCount.incrementAndGet();
+            // An overflow error would only arrive after the buffer drained, which
+            // never happens for a stuck client, so overflow completes the stream directly
+            Sinks.Empty<Void> overflowed = Sinks.empty();
+            return channel.sink.asFlux()
+                    .onBackpressureBuffer(bufferSize, dropped -> {
+                        if (overflowed.tryEmitEmpty().isSuccess()) {
+                            slowDisconnects.increment();
+                        }
+                    }, BufferOverflowStrategy.DROP_LATEST)
+                    .takeUntilOther(overflowed.asMono())
+                    .doFinally(signal -> {
+                        subscriberCount.decrementAndGet();
+                        channels.computeIfPresent(groupId, (id, c) -> --c.subscribers == 0 ? null : c);
+                    });
+        });
+    }
+
+    /** Shared tick used by the SSE endpoint to keep idle connections open. */
+    public Flux<Long> heartbeat() {
+        return heartbeat;
+    }
+
+    public void publish(ItemChangeEvent event) {
+        publishAll(List.of(event));
+    }
+
+    /**
+     * Delivers the events once the current transaction commits (or right away
+     * if there is none); nothing is sent for a rolled back transaction.
+     */
+    public void publishAll(List<ItemChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(events);
+                }
+            });
+        } else {
+            deliver(events);
+        }
+    }
+
+    private void deliver(List<ItemChangeEvent> events) {
+        for (ItemChangeEvent event : events) {
+            Channel channel = channels.get(event.groupId());
+            if (channel == null) {
+                continue;
+            }
+            ItemChangeEvent versioned = event.withGroupVersion(groupVersionService.currentVersion(event.groupId()));
+            // Sinks need serialized emission; committing threads can race here
+            synchronized (channel) {
+                channel.sink.tryEmitNext(versioned);
+            }
+        }
+    }
+
+    int subscriberCount() {
+        return subscriberCount.get();
+    }
+}
@@ -32,6 +32,14 @@ public class InventoryGroup {
     @JoinTable(name = "group_members", joinColumns = @JoinColumn(name = "group_id"), inverseJoinColumns = @JoinColumn(name = "user_id"))
     private List<AppUser> members = new ArrayList<>();
 
+    // Bumped in the same transaction as every item or membership change (see
+    // GroupVersionService); ETags are derived from it, so every node agrees.
+    // Only ever written by that UPDATE, never from this (possibly stale) field
+    @Column(name = "content_version", columnDefinition = "bigint default 0 not null", insertable = false,
+            updatable = false)
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private long contentVersion;
+
     public InventoryGroup() {
     }
 
@@ -83,6 +91,10 @@ public class InventoryGroup {
         this.members = members;
     }
 
+    public long getContentVersion() {
+        return contentVersion;
+    }
+
     public void addMember(AppUser user) {
         this.members.add(user);
     }
@@ -0,0 +1,8 @@
+package com.filmasticpg.premzone.group;
+
+/**
+ * Published (after commit) whenever a group's contents change and its
+ * version is bumped.
+ */
+public record InventoryGroupChangedEvent(Long groupId, long version) {
+}
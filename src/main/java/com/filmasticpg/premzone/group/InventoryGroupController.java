@@ -2,8 +2,16 @@ package com.filmasticpg.premzone.group;
 
 import com.filmasticpg.premzone.user.AppUser;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/v1/groups")
@@ -12,17 +20,40 @@ public class InventoryGroupController {
 
     private final InventoryGroupService inventoryGroupService;
     private final com.filmasticpg.premzone.config.UserContext userContext;
+    private final InventoryChangeFeed changeFeed;
+    private final GroupVersionService groupVersionService;
+    private final GroupMembershipService groupMembershipService;
 
     @Autowired
     public InventoryGroupController(InventoryGroupService inventoryGroupService,
-            com.filmasticpg.premzone.config.UserContext userContext) {
+            com.filmasticpg.premzone.config.UserContext userContext,
+            InventoryChangeFeed changeFeed,
+            GroupVersionService groupVersionService,
+            GroupMembershipService groupMembershipService) {
         this.inventoryGroupService = inventoryGroupService;
         this.userContext = userContext;
+        this.changeFeed = changeFeed;
+        this.groupVersionService = groupVersionService;
+        this.groupMembershipService = groupMembershipService;
     }
 
+    // Responses carry the versions of the groups they show as ETag and may be
+    // kept by the browser as long as it revalidates them with If-None-Match
     @GetMapping
-    public List<InventoryGroup> getAllGroups() {
-        return inventoryGroupService.getAllGroups();
+    public ResponseEntity<List<InventoryGroup>> getAllGroups(WebRequest request) {
+        String etag = groupVersionService.etag(inventoryGroupService.getCurrentUserGroupIds());
+        if (request.checkNotModified(etag))
+            return null;
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag)
+                .body(inventoryGroupService.getAllGroups());
+    }
+
+    // Counts only, for the dashboard; avoids loading members and creators per group
+    @GetMapping("/summary")
+    public List<GroupSummary> getGroupSummaries(@RequestParam(defaultValue = "7") int days) {
+        return inventoryGroupService.getGroupSummaries(days);
     }
 
     @PostMapping
@@ -31,8 +62,37 @@ public class InventoryGroupController {
     }
 
     @GetMapping("/{id}")
-    public InventoryGroup getGroup(@PathVariable Long id) {
-        return inventoryGroupService.getGroupById(id);
+    public ResponseEntity<InventoryGroup> getGroup(@PathVariable Long id, WebRequest request) {
+        groupMembershipService.requireMember(id);
+        String etag = groupVersionService.etag(List.of(id));
+        if (request.checkNotModified(etag))
+            return null;
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag)
+                .body(inventoryGroupService.getGroupById(id));
+    }
+
+    /**
+     * Live item changes for the group as server-sent events named after the
+     * change type (added, updated, quantity_changed, deleted), with a comment
+     * heartbeat in between. The stream ends if the client falls behind or the
+     * async timeout hits; clients reconnect and reload the listing.
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ItemChangeEvent>> streamEvents(@PathVariable Long id) {
+        groupMembershipService.requireMember(id);
+        // Heartbeats stop as soon as the change stream ends (e.g. a slow client was dropped)
+        Sinks.Empty<Void> closed = Sinks.empty();
+        Flux<ServerSentEvent<ItemChangeEvent>> changes = changeFeed.subscribe(id)
+                .map(event -> ServerSentEvent.builder(event)
+                        .event(event.type().name().toLowerCase(Locale.ROOT))
+                        .build())
+                .doFinally(signal -> closed.tryEmitEmpty());
+        Flux<ServerSentEvent<ItemChangeEvent>> heartbeats = changeFeed.heartbeat()
+                .map(tick -> ServerSentEvent.<ItemChangeEvent>builder().comment("heartbeat").build())
+                .takeUntilOther(closed.asMono());
+        return Flux.merge(changes, heartbeats);
     }
 
     @DeleteMapping("/{id}")
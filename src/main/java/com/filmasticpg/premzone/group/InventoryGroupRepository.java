@@ -1,16 +1,67 @@
 package com.filmasticpg.premzone.group;
 
 import com.filmasticpg.premzone.user.AppUser;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface InventoryGroupRepository extends JpaRepository<InventoryGroup, Long> {
-    // Critical for "Join Group" feature
+    // Critical for "Join Group" feature. Members are fetched because the
+    // returned group is serialized with them, after the transaction
+    @EntityGraph(attributePaths = "members")
     Optional<InventoryGroup> findByJoinCode(String joinCode);
 
-    List<InventoryGroup> findByMembersContaining(AppUser member);
-}
\ No newline at end of file
+    @EntityGraph(attributePaths = "members")
+    List<InventoryGroup> findWithMembersByMembersContaining(AppUser member);
+
+    @EntityGraph(attributePaths = "members")
+    Optional<InventoryGroup> findWithMembersById(Long id);
+
+    // Just the IDs, without loading groups or members
+    @Query("select g.id from InventoryGroup g join g.members m where m.id = :userId")
+    List<Long> findGroupIdsByMemberId(@Param("userId") Long userId);
+
+    @Query("select m.id from InventoryGroup g join g.members m where g.id = :groupId")
+    List<Long> findMemberIdsByGroupId(@Param("groupId") Long groupId);
+
+    // Joins the caller's transaction, so the bump commits (or rolls back) with the change
+    @Transactional
+    @Modifying
+    @Query("update InventoryGroup g set g.contentVersion = g.contentVersion + 1 where g.id = :id")
+    int incrementContentVersion(@Param("id") Long id);
+
+    // Persisted versions only, for ETags; touches no items or members
+    @Query("""
+            select new com.filmasticpg.premzone.group.GroupContentVersion(g.id, g.contentVersion)
+            from InventoryGroup g
+            where g.id in :groupIds
+            order by g.id
+            """)
+    List<GroupContentVersion> findContentVersions(@Param("groupIds") Collection<Long> groupIds);
+
+    // One statement for all groups; the counts are correlated subqueries served
+    // by the group_id and expiry_date indexes
+    @Query("""
+            select new com.filmasticpg.premzone.group.GroupSummary(
+                g.id, g.groupName, g.joinCode,
+                size(g.members),
+                (select count(i) from InventoryItem i where i.inventoryGroup = g),
+                (select count(e) from ExpirableItem e
+                    where e.inventoryGroup = g and e.expiryDate between :from and :to))
+            from InventoryGroup g
+            where g.id in :groupIds
+            order by g.groupName, g.id
+            """)
+    List<GroupSummary> findSummaries(@Param("groupIds") Collection<Long> groupIds, @Param("from") LocalDate from,
+            @Param("to") LocalDate to);
+}
@@ -5,7 +5,9 @@ import com.filmasticpg.premzone.config.UserContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -13,16 +15,40 @@ public class InventoryGroupService {
 
     private final InventoryGroupRepository inventoryGroupRepository;
     private final UserContext userContext;
+    private final GroupVersionService groupVersionService;
+    private final GroupMembershipService groupMembershipService;
 
     @Autowired
-    public InventoryGroupService(InventoryGroupRepository inventoryGroupRepository, UserContext userContext) {
+    public InventoryGroupService(InventoryGroupRepository inventoryGroupRepository, UserContext userContext,
+            GroupVersionService groupVersionService, GroupMembershipService groupMembershipService) {
         this.inventoryGroupRepository = inventoryGroupRepository;
         this.userContext = userContext;
+        this.groupVersionService = groupVersionService;
+        this.groupMembershipService = groupMembershipService;
     }
 
+    // With members loaded: groups are serialized with them, outside any session
     public List<InventoryGroup> getAllGroups() {
         AppUser currentUser = userContext.getCurrentUser();
-        return inventoryGroupRepository.findByMembersContaining(currentUser);
+        return inventoryGroupRepository.findWithMembersByMembersContaining(currentUser);
+    }
+
+    /**
+     * Summaries of the current user's groups, counting items that expire
+     * within {@code days} days. One query regardless of the number of groups.
+     */
+    public List<GroupSummary> getGroupSummaries(int days) {
+        if (days < 0)
+            throw new IllegalArgumentException("Days cannot be negative");
+        Set<Long> groupIds = groupMembershipService.getCurrentUserGroupIds();
+        if (groupIds.isEmpty())
+            return List.of();
+        LocalDate today = LocalDate.now();
+        return inventoryGroupRepository.findSummaries(groupIds, today, today.plusDays(days));
+    }
+
+    public Set<Long> getCurrentUserGroupIds() {
+        return groupMembershipService.getCurrentUserGroupIds();
     }
 
     @Transactional
@@ -35,6 +61,7 @@ public class InventoryGroupService {
         AppUser creator = userContext.getCurrentUser();
         group.setCreatedBy(creator);
         group.addMember(creator);
+        groupMembershipService.invalidate(creator.getId());
 
         return inventoryGroupRepository.save(group);
     }
@@ -42,21 +69,26 @@ public class InventoryGroupService {
     public InventoryGroup getGroupById(@org.springframework.lang.NonNull Long id) {
         if (id == null)
             throw new IllegalArgumentException("ID cannot be null");
-        return inventoryGroupRepository.findById(id)
+        return inventoryGroupRepository.findWithMembersById(id)
                 .orElseThrow(() -> new RuntimeException("Group not found"));
     }
 
+    @Transactional
     public void deleteGroup(Long groupId, AppUser currentUser) {
         InventoryGroup group = getGroupById(groupId);
 
         if (group.getCreatedBy().getId().equals(currentUser.getId())) {
             // Owner is deleting -> Delete entire group (Cascade deletes items)
+            groupMembershipService.invalidate(inventoryGroupRepository.findMemberIdsByGroupId(groupId));
             inventoryGroupRepository.delete(group);
+            groupVersionService.markChanged(groupId);
         } else {
             // Member is leaving -> Remove from members list
-            if (group.getMembers().contains(currentUser)) {
+            if (groupMembershipService.isMember(currentUser.getId(), groupId)) {
                 group.removeMember(currentUser);
                 inventoryGroupRepository.save(group);
+                groupMembershipService.invalidate(currentUser.getId());
+                groupVersionService.markChanged(groupId);
             } else {
                 throw new RuntimeException("User is not a member of this group");
             }
@@ -73,11 +105,10 @@ public class InventoryGroupService {
 
         AppUser currentUser = userContext.getCurrentUser();
 
-        boolean isMember = group.getMembers().stream()
-                .anyMatch(member -> member.getId().equals(currentUser.getId()));
-
-        if (!isMember) {
+        if (!groupMembershipService.isMember(currentUser.getId(), group.getId())) {
             group.addMember(currentUser);
+            groupMembershipService.invalidate(currentUser.getId());
+            groupVersionService.markChanged(group.getId());
             // Save and flush to ensure no DB constraint issues immediately (though
             // transactional handles it)
             return inventoryGroupRepository.save(group);
@@ -0,0 +1,19 @@
+package com.filmasticpg.premzone.group;
+
+/**
+ * Item-level change pushed to subscribers of a group's change feed once the
+ * transaction that made it has committed. {@code quantity} is the new
+ * quantity when known; a plain decrement only carries {@code quantityDelta}.
+ * {@code groupVersion} is the group's version as of publishing.
+ */
+public record ItemChangeEvent(Type type, Long groupId, Long itemId, String name, Integer quantity,
+        Integer quantityDelta, long groupVersion) {
+
+    public enum Type {
+        ADDED, UPDATED, QUANTITY_CHANGED, DELETED
+    }
+
+    public ItemChangeEvent withGroupVersion(long version) {
+        return new ItemChangeEvent(type, groupId, itemId, name, quantity, quantityDelta, version);
+    }
+}
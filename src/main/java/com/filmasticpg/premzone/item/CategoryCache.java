@@ -0,0 +1,147 @@
+package com.filmasticpg.premzone.item;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Name -> Category lookup for item writes, so adding an item with a known
+ * category doesn't query the category table.
+ *
+ * Missing categories are created with INSERT ... ON CONFLICT DO NOTHING and
+ * then read back, so two requests creating the same new name both end up with
+ * the one row instead of one of them failing on the unique constraint.
+ * Entries are only cached once the creating transaction has committed, so a
+ * rollback never leaves an ID in the cache that doesn't exist.
+ *
+ * Cached instances are detached and shared; they're only meant to be set as
+ * an item's category, never modified.
+ */
+@Component
+public class CategoryCache {
+
+    private final CategoryRepository categoryRepository;
+    private final Cache<String, Category> categories;
+
+    public CategoryCache(CategoryRepository categoryRepository,
+            MeterRegistry meterRegistry,
+            @Value("${premzone.categories.cache-size:10000}") long maxSize) {
+        this.categoryRepository = categoryRepository;
+        this.categories = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, categories, "category");
+    }
+
+    /**
+     * Makes sure the standard categories (one per {@link ItemCategory}) exist
+     * and loads them into the cache.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void warmUp() {
+        for (ItemCategory standard : ItemCategory.values()) {
+            categoryRepository.insertIfAbsent(displayName(standard), true);
+        }
+        for (Category category : categoryRepository.findStandard()) {
+            categories.put(category.getName(), category);
+        }
+    }
+
+    /**
+     * The category with this exact name, created if it doesn't exist yet.
+     * Must be called within a transaction.
+     */
+    public Category getOrCreate(String name) {
+        if (name == null || name.isBlank())
+            throw new IllegalArgumentException("Category name must be provided");
+        Category cached = categories.getIfPresent(name);
+        if (cached != null) {
+            return cached;
+        }
+        Category category = categoryRepository.findByName(name).orElseGet(() -> {
+            categoryRepository.insertIfAbsent(name, false);
+            return categoryRepository.findByName(name)
+                    .orElseThrow(() -> new RuntimeException("Category not found: " + name));
+        });
+        cacheAfterCommit(List.of(category));
+        return category;
+    }
+
+    /**
+     * Bulk version of {@link #getOrCreate}: one query for the names not
+     * cached yet, plus one insert per name that doesn't exist.
+     */
+    public Map<String, Category> getOrCreateAll(Collection<String> names) {
+        Map<String, Category> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String name : names) {
+            if (name == null || name.isBlank())
+                throw new IllegalArgumentException("Category name must be provided");
+            Category cached = categories.getIfPresent(name);
+            if (cached != null) {
+                result.put(name, cached);
+            } else {
+                missing.add(name);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        List<Category> loaded = new ArrayList<>(categoryRepository.findByNameIn(missing));
+        loaded.forEach(c -> result.put(c.getName(), c));
+        List<String> toCreate = missing.stream().filter(name -> !result.containsKey(name)).toList();
+        if (!toCreate.isEmpty()) {
+            toCreate.forEach(name -> categoryRepository.insertIfAbsent(name, false));
+            for (Category created : categoryRepository.findByNameIn(toCreate)) {
+                result.put(created.getName(), created);
+                loaded.add(created);
+            }
+        }
+        cacheAfterCommit(loaded);
+        return result;
+    }
+
+    /**
+     * Drops a cached name, e.g. after the category row was renamed or removed.
+     */
+    public void invalidate(String name) {
+        categories.invalidate(name);
+    }
+
+    private void cacheAfterCommit(List<Category> loaded) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    loaded.forEach(c -> categories.put(c.getName(), c));
+                }
+            });
+        } else {
+            loaded.forEach(c -> categories.put(c.getName(), c));
+        }
+    }
+
+    // FOOD -> "Food"
+    private static String displayName(ItemCategory category) {
+        String name = category.name();
+        return name.charAt(0) + name.substring(1).toLowerCase(Locale.ROOT);
+    }
+}
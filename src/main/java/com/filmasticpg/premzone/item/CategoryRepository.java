@@ -1,10 +1,27 @@
 package com.filmasticpg.premzone.item;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     Optional<Category> findByName(String name);
+
+    List<Category> findByNameIn(Collection<String> names);
+
+    @Query("select c from Category c where c.isStandard = true")
+    List<Category> findStandard();
+
+    // Creates the category unless one with this name exists (or is being
+    // created by a concurrent transaction), without a unique-constraint error
+    @Modifying
+    @Query(value = "insert into category (name, is_standard) values (:name, :standard) on conflict (name) do nothing",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name, @Param("standard") boolean standard);
 }
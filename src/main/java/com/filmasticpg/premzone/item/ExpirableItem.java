@@ -4,7 +4,7 @@ import jakarta.persistence.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "expirable_item")
+@Table(name = "expirable_item", indexes = @Index(name = "idx_expirable_item_expiry_date", columnList = "expiry_date, id"))
 public abstract class ExpirableItem extends InventoryItem {
 
     @Column(name = "expiry_date", nullable = true)
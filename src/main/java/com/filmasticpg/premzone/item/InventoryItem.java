@@ -3,15 +3,19 @@ package com.filmasticpg.premzone.item;
 import com.filmasticpg.premzone.group.InventoryGroup;
 import com.filmasticpg.premzone.user.AppUser;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "inventory_item")
+@Table(name = "inventory_item", indexes = @Index(name = "idx_inventory_item_group_id", columnList = "group_id"))
 @Inheritance(strategy = InheritanceType.JOINED)
 public abstract class InventoryItem {
 
+    // Pooled sequence so inserts can be JDBC-batched (IDENTITY forces one
+    // round trip per row to read the generated key)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_item_seq")
+    @SequenceGenerator(name = "inventory_item_seq", sequenceName = "inventory_item_seq", allocationSize = 50)
     protected Long id;
 
     @Column(nullable = false)
@@ -27,13 +31,20 @@ public abstract class InventoryItem {
 
     @ManyToOne
     @JoinColumn(name = "group_id", nullable = false)
-    @com.fasterxml.jackson.annotation.JsonIgnoreProperties({ "items" })
+    // members is lazy and the item is serialized after its transaction ends
+    @com.fasterxml.jackson.annotation.JsonIgnoreProperties({ "items", "members" })
     protected InventoryGroup inventoryGroup;
 
     @ManyToOne
     @JoinColumn(name = "created_by")
     protected AppUser createdBy;
 
+    // Default fills the column for rows created before it existed
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    protected Long version;
+
     public InventoryItem() {
     }
 
@@ -92,4 +103,12 @@ public abstract class InventoryItem {
     public void setCreatedBy(AppUser createdBy) {
         this.createdBy = createdBy;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -1,7 +1,15 @@
 package com.filmasticpg.premzone.item;
 
+import com.filmasticpg.premzone.group.GroupMembershipService;
+import com.filmasticpg.premzone.group.GroupVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
 import java.util.Map;
 
@@ -11,20 +19,81 @@ import java.util.Map;
 public class InventoryItemController {
 
     private final InventoryItemService inventoryItemService;
+    private final GroupVersionService groupVersionService;
+    private final GroupMembershipService groupMembershipService;
 
     @Autowired
-    public InventoryItemController(InventoryItemService inventoryItemService) {
+    public InventoryItemController(InventoryItemService inventoryItemService,
+            GroupVersionService groupVersionService,
+            GroupMembershipService groupMembershipService) {
         this.inventoryItemService = inventoryItemService;
+        this.groupVersionService = groupVersionService;
+        this.groupMembershipService = groupMembershipService;
     }
 
+    // A page only changes with the group's version, so a matching If-None-Match
+    // is answered with 304 before any item is read
     @GetMapping("/group/{groupId}")
-    public List<InventoryItem> getItemsByGroup(@PathVariable Long groupId) {
-        return inventoryItemService.getItemsByGroup(groupId);
+    public ResponseEntity<ItemPage> getItemsByGroup(@PathVariable Long groupId,
+            @RequestParam(defaultValue = "NAME") ItemSort sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            WebRequest request) {
+        groupMembershipService.requireMember(groupId);
+        String etag = groupVersionService.etag(List.of(groupId));
+        if (request.checkNotModified(etag))
+            return null;
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag)
+                .body(inventoryItemService.getItemsByGroup(groupId, sort, "desc".equalsIgnoreCase(direction),
+                        cursor, size));
+    }
+
+    @GetMapping("/group/{groupId}/suggest")
+    public List<ItemSuggestion> suggest(@PathVariable Long groupId, @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        groupMembershipService.requireMember(groupId);
+        return inventoryItemService.suggest(groupId, prefix, limit);
+    }
+
+    @GetMapping("/group/{groupId}/expiring-soon")
+    public List<ItemContextRow> getExpiringSoonInGroup(@PathVariable Long groupId,
+            @RequestParam(defaultValue = "7") int days,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        groupMembershipService.requireMember(groupId);
+        return inventoryItemService.getExpiringSoon(groupId, days, page, size);
+    }
+
+    @GetMapping("/group/{groupId}/expired")
+    public List<ItemContextRow> getExpiredInGroup(@PathVariable Long groupId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        groupMembershipService.requireMember(groupId);
+        return inventoryItemService.getExpired(groupId, page, size);
+    }
+
+    // Across all of the current user's groups
+    @GetMapping("/expiring-soon")
+    public List<ItemContextRow> getExpiringSoon(@RequestParam(defaultValue = "7") int days,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return inventoryItemService.getExpiringSoon(null, days, page, size);
+    }
+
+    @GetMapping("/expired")
+    public List<ItemContextRow> getExpired(@RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return inventoryItemService.getExpired(null, page, size);
     }
 
     @GetMapping("/search")
-    public List<InventoryItem> search(@RequestParam String q) {
-        return inventoryItemService.globalSearch(q);
+    public List<ItemSearchHit> search(@RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return inventoryItemService.search(q, page, size);
     }
 
     // Creating polymorphic items is complex via JSON.
@@ -39,6 +108,7 @@ public class InventoryItemController {
 
     @PostMapping("/group/{groupId}")
     public InventoryItem addItem(@PathVariable Long groupId, @RequestBody Map<String, Object> payload) {
+        groupMembershipService.requireMember(groupId);
         String type = (String) payload.getOrDefault("type", "Food");
         String name = (String) payload.get("name");
         String catName = (String) payload.get("category");
@@ -96,13 +166,23 @@ public class InventoryItemController {
         return inventoryItemService.addItem(groupId, item, catName);
     }
 
+    @PostMapping("/batch")
+    public List<ItemOperationResult> applyBatch(@RequestBody List<ItemOperation> operations) {
+        return inventoryItemService.applyBatch(operations);
+    }
+
     @DeleteMapping("/{id}")
     public void deleteItem(@PathVariable Long id) {
+        groupMembershipService.requireMember(inventoryItemService.getGroupIdOfItem(id));
         inventoryItemService.deleteItem(id);
     }
 
+    // Conditional when the client sends the version it last read, as If-Match
+    // ("3" or W/"3") or a "version" field; 409 if the item changed since
     @PutMapping("/{id}")
-    public InventoryItem updateItem(@PathVariable Long id, @RequestBody Map<String, Object> payload) {
+    public InventoryItem updateItem(@PathVariable Long id, @RequestBody Map<String, Object> payload,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        groupMembershipService.requireMember(inventoryItemService.getGroupIdOfItem(id));
         // Similar logic to create, but we only need to construct the object to pass to
         // service
         // Ideally refactor this construction logic, but for speed duplicating for now.
@@ -153,16 +233,38 @@ public class InventoryItemController {
         }
         item.setName(name);
         item.setQuantity(quantity);
+        item.setVersion(expectedVersion(ifMatch, payload.get("version")));
 
         return inventoryItemService.updateItem(id, item, catName);
     }
 
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<String> itemChanged(ObjectOptimisticLockingFailureException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("The item was changed by someone else. Reload it and try again.");
+    }
+
+    private static Long expectedVersion(String ifMatch, Object payloadVersion) {
+        if (ifMatch != null && !ifMatch.isBlank() && !ifMatch.trim().equals("*")) {
+            String tag = ifMatch.trim();
+            if (tag.startsWith("W/"))
+                tag = tag.substring(2);
+            try {
+                return Long.valueOf(tag.replace("\"", ""));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid If-Match: " + ifMatch);
+            }
+        }
+        return payloadVersion != null ? Long.valueOf(payloadVersion.toString()) : null;
+    }
+
     @PostMapping("/{id}/reduce")
     public void reduceItemQuantity(@PathVariable Long id, @RequestBody Map<String, Integer> payload) {
         Integer amount = payload.get("amount");
         if (amount == null) {
             throw new IllegalArgumentException("Amount must be provided");
         }
+        groupMembershipService.requireMember(inventoryItemService.getGroupIdOfItem(id));
         inventoryItemService.reduceItemQuantity(id, amount);
     }
 }
@@ -1,13 +1,123 @@
 package com.filmasticpg.premzone.item;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface InventoryItemRepository extends JpaRepository<InventoryItem, Long> {
-    List<InventoryItem> findByInventoryGroupId(Long groupId);
+    // Items of several groups with their category and expiry in a single query
+    // (avoids N+1 when building the AI context)
+    @Query("""
+            select new com.filmasticpg.premzone.item.ItemContextRow(
+                i.id, i.inventoryGroup.id, i.name, i.quantity, c.name, e.expiryDate)
+            from InventoryItem i
+            join i.category c
+            left join ExpirableItem e on e.id = i.id
+            where i.inventoryGroup.id in :groupIds
+            order by i.id
+            """)
+    List<ItemContextRow> findContextRowsByGroupIds(@Param("groupIds") Collection<Long> groupIds);
 
-    List<InventoryItem> findByNameContainingIgnoreCaseOrCategoryNameContainingIgnoreCase(String name,
-            String categoryName);
+    // One group's items after an id, for paging through it in id order
+    @Query("""
+            select new com.filmasticpg.premzone.item.ItemContextRow(
+                i.id, i.inventoryGroup.id, i.name, i.quantity, c.name, e.expiryDate)
+            from InventoryItem i
+            join i.category c
+            left join ExpirableItem e on e.id = i.id
+            where i.inventoryGroup.id = :groupId and i.id > :afterId
+            order by i.id
+            """)
+    List<ItemContextRow> findContextRowsByGroupIdAfter(@Param("groupId") Long groupId,
+            @Param("afterId") Long afterId, Limit limit);
+
+    @Query("""
+            select new com.filmasticpg.premzone.item.ItemContextRow(
+                i.id, i.inventoryGroup.id, i.name, i.quantity, c.name, e.expiryDate)
+            from InventoryItem i
+            join i.category c
+            left join ExpirableItem e on e.id = i.id
+            where i.inventoryGroup.id in :groupIds
+              and (lower(i.name) like lower(concat('%', :q, '%')) or lower(c.name) like lower(concat('%', :q, '%')))
+            order by i.name
+            """)
+    List<ItemContextRow> searchContextRows(@Param("groupIds") Collection<Long> groupIds, @Param("q") String query,
+            Limit limit);
+
+    @Query("""
+            select new com.filmasticpg.premzone.item.ItemContextRow(
+                i.id, i.inventoryGroup.id, i.name, i.quantity, c.name, e.expiryDate)
+            from InventoryItem i
+            join i.category c
+            join ExpirableItem e on e.id = i.id
+            where i.inventoryGroup.id in :groupIds and e.expiryDate <= :before
+            order by e.expiryDate
+            """)
+    List<ItemContextRow> findExpiringContextRows(@Param("groupIds") Collection<Long> groupIds,
+            @Param("before") LocalDate before, Limit limit);
+
+    @Query("""
+            select new com.filmasticpg.premzone.item.ItemSuggestion(i.id, i.name, i.quantity)
+            from InventoryItem i
+            where i.inventoryGroup.id = :groupId
+            """)
+    List<ItemSuggestion> findSuggestionsByGroupId(@Param("groupId") Long groupId);
+
+    // Items expiring in [from, to], soonest first
+    @Query("""
+            select new com.filmasticpg.premzone.item.ItemContextRow(
+                i.id, i.inventoryGroup.id, i.name, i.quantity, c.name, e.expiryDate)
+            from InventoryItem i
+            join i.category c
+            join ExpirableItem e on e.id = i.id
+            where i.inventoryGroup.id in :groupIds and e.expiryDate between :from and :to
+            order by e.expiryDate, i.id
+            """)
+    List<ItemContextRow> findExpiringBetween(@Param("groupIds") Collection<Long> groupIds,
+            @Param("from") LocalDate from, @Param("to") LocalDate to, Pageable pageable);
+
+    // Items of every group expiring in [from, to], for the alert scheduler
+    @Query("""
+            select new com.filmasticpg.premzone.item.ItemContextRow(
+                i.id, i.inventoryGroup.id, i.name, i.quantity, c.name, e.expiryDate)
+            from InventoryItem i
+            join i.category c
+            join ExpirableItem e on e.id = i.id
+            where e.expiryDate between :from and :to
+            """)
+    List<ItemContextRow> findAllExpiringBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Items whose expiry date has passed, most recently expired first
+    @Query("""
+            select new com.filmasticpg.premzone.item.ItemContextRow(
+                i.id, i.inventoryGroup.id, i.name, i.quantity, c.name, e.expiryDate)
+            from InventoryItem i
+            join i.category c
+            join ExpirableItem e on e.id = i.id
+            where i.inventoryGroup.id in :groupIds and e.expiryDate < :today
+            order by e.expiryDate desc, i.id
+            """)
+    List<ItemContextRow> findExpiredBefore(@Param("groupIds") Collection<Long> groupIds,
+            @Param("today") LocalDate today, Pageable pageable);
+
+    // Decrements in place; matches nothing when the item would drop to zero or
+    // below (or has no quantity), which the caller handles by deleting it
+    @Modifying
+    @Query(value = """
+            update inventory_item set quantity = quantity - :amount, version = version + 1
+            where id = :id and quantity > :amount
+            """, nativeQuery = true)
+    int decrementQuantity(@Param("id") Long id, @Param("amount") int amount);
+
+    @Query("select i.inventoryGroup.id from InventoryItem i where i.id = :id")
+    Optional<Long> findGroupIdById(@Param("id") Long id);
 }
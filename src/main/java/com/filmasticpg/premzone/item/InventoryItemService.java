@@ -1,43 +1,183 @@
 package com.filmasticpg.premzone.item;
 
+import com.filmasticpg.premzone.alert.ExpiryAlertScheduler;
+import com.filmasticpg.premzone.group.GroupVersionService;
+import com.filmasticpg.premzone.group.InventoryChangeFeed;
 import com.filmasticpg.premzone.group.InventoryGroup;
 import com.filmasticpg.premzone.group.InventoryGroupRepository;
+import com.filmasticpg.premzone.group.InventoryGroupService;
+import com.filmasticpg.premzone.group.ItemChangeEvent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Service
 public class InventoryItemService {
 
     private final InventoryItemRepository inventoryItemRepository;
-    private final CategoryRepository categoryRepository;
+    private final CategoryCache categoryCache;
     private final InventoryGroupRepository inventoryGroupRepository;
+    private final GroupVersionService groupVersionService;
+    private final InventoryGroupService inventoryGroupService;
+    private final ItemSearchEngine itemSearchEngine;
+    private final ItemSuggestIndex itemSuggestIndex;
+    private final ItemListingQuery itemListingQuery;
+    private final ExpiryAlertScheduler expiryAlertScheduler;
+    private final InventoryChangeFeed changeFeed;
+    private final int maxBatchOperations;
 
     @Autowired
     public InventoryItemService(InventoryItemRepository inventoryItemRepository,
-            CategoryRepository categoryRepository,
-            InventoryGroupRepository inventoryGroupRepository) {
+            CategoryCache categoryCache,
+            InventoryGroupRepository inventoryGroupRepository,
+            GroupVersionService groupVersionService,
+            InventoryGroupService inventoryGroupService,
+            ItemSearchEngine itemSearchEngine,
+            ItemSuggestIndex itemSuggestIndex,
+            ItemListingQuery itemListingQuery,
+            ExpiryAlertScheduler expiryAlertScheduler,
+            InventoryChangeFeed changeFeed,
+            @Value("${premzone.items.batch.max-operations:10000}") int maxBatchOperations) {
         this.inventoryItemRepository = inventoryItemRepository;
-        this.categoryRepository = categoryRepository;
+        this.categoryCache = categoryCache;
         this.inventoryGroupRepository = inventoryGroupRepository;
+        this.groupVersionService = groupVersionService;
+        this.inventoryGroupService = inventoryGroupService;
+        this.itemSearchEngine = itemSearchEngine;
+        this.itemSuggestIndex = itemSuggestIndex;
+        this.itemListingQuery = itemListingQuery;
+        this.expiryAlertScheduler = expiryAlertScheduler;
+        this.changeFeed = changeFeed;
+        this.maxBatchOperations = maxBatchOperations;
     }
 
-    public List<InventoryItem> getItemsByGroup(@org.springframework.lang.NonNull Long groupId) {
+    /**
+     * One page of the group's items. cursor is the nextCursor of the previous
+     * page (null for the first one) and must come from the same sort.
+     */
+    public ItemPage getItemsByGroup(@org.springframework.lang.NonNull Long groupId, ItemSort sort,
+            boolean descending, String cursor, int size) {
         if (groupId == null)
             throw new IllegalArgumentException("Group ID cannot be null");
-        return inventoryItemRepository.findByInventoryGroupId(groupId);
+        return itemListingQuery.page(groupId, sort != null ? sort : ItemSort.NAME, descending, cursor,
+                Math.min(Math.max(size, 1), 200));
     }
 
-    public List<InventoryItem> globalSearch(String query) {
-        return inventoryItemRepository.findByNameContainingIgnoreCaseOrCategoryNameContainingIgnoreCase(query, query);
+    /**
+     * Ranked, paginated search over the current user's groups only.
+     */
+    public List<ItemSearchHit> search(String query, int page, int size) {
+        if (query == null || query.isBlank())
+            return List.of();
+        Collection<Long> groupIds = inventoryGroupService.getCurrentUserGroupIds();
+        if (groupIds.isEmpty())
+            return List.of();
+        return itemSearchEngine.search(groupIds, query, Math.max(page, 0), Math.min(Math.max(size, 1), 100));
+    }
+
+    /**
+     * Name autocomplete within one group, served from memory once the group's
+     * index is warm.
+     */
+    public List<ItemSuggestion> suggest(@org.springframework.lang.NonNull Long groupId, String prefix, int limit) {
+        if (groupId == null)
+            throw new IllegalArgumentException("Group ID cannot be null");
+        return itemSuggestIndex.suggest(groupId, prefix, Math.min(Math.max(limit, 1), 50));
+    }
+
+    /**
+     * Name/category search limited to the given groups, as flat rows.
+     */
+    public List<ItemContextRow> searchItemRows(Collection<Long> groupIds, String query, int limit) {
+        if (groupIds.isEmpty() || query == null || query.isBlank())
+            return List.of();
+        return inventoryItemRepository.searchContextRows(groupIds, query.trim(), Limit.of(limit));
+    }
+
+    /**
+     * Items in the given groups that expire within {@code days} days
+     * (including already expired ones), soonest first.
+     */
+    public List<ItemContextRow> getExpiringItemRows(Collection<Long> groupIds, int days, int limit) {
+        if (groupIds.isEmpty())
+            return List.of();
+        return inventoryItemRepository.findExpiringContextRows(groupIds, LocalDate.now().plusDays(days),
+                Limit.of(limit));
+    }
+
+    /**
+     * Items expiring between today and {@code days} days from now, soonest
+     * first. groupId null means all of the current user's groups.
+     */
+    public List<ItemContextRow> getExpiringSoon(Long groupId, int days, int page, int size) {
+        if (days < 0)
+            throw new IllegalArgumentException("Days cannot be negative");
+        Collection<Long> groupIds = groupId != null ? List.of(groupId) : inventoryGroupService.getCurrentUserGroupIds();
+        if (groupIds.isEmpty())
+            return List.of();
+        LocalDate today = LocalDate.now();
+        return inventoryItemRepository.findExpiringBetween(groupIds, today, today.plusDays(days),
+                pageRequest(page, size));
+    }
+
+    /**
+     * Items past their expiry date, most recently expired first. groupId null
+     * means all of the current user's groups.
+     */
+    public List<ItemContextRow> getExpired(Long groupId, int page, int size) {
+        Collection<Long> groupIds = groupId != null ? List.of(groupId) : inventoryGroupService.getCurrentUserGroupIds();
+        if (groupIds.isEmpty())
+            return List.of();
+        return inventoryItemRepository.findExpiredBefore(groupIds, LocalDate.now(), pageRequest(page, size));
+    }
+
+    private static PageRequest pageRequest(int page, int size) {
+        return PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 200));
+    }
+
+    /**
+     * Up to {@code limit} items of the group with an id above {@code afterId}
+     * (null for the first page), in id order.
+     */
+    public List<ItemContextRow> getItemRowsByGroup(@org.springframework.lang.NonNull Long groupId, Long afterId,
+            int limit) {
+        if (groupId == null)
+            throw new IllegalArgumentException("Group ID cannot be null");
+        return inventoryItemRepository.findContextRowsByGroupIdAfter(groupId, afterId != null ? afterId : 0L,
+                Limit.of(limit));
+    }
+
+    public Long getGroupIdOfItem(@org.springframework.lang.NonNull Long id) {
+        if (id == null)
+            throw new IllegalArgumentException("ID cannot be null");
+        return inventoryItemRepository.findGroupIdById(id)
+                .orElseThrow(() -> new RuntimeException("Item not found"));
     }
 
     @Transactional
     public void deleteItem(@org.springframework.lang.NonNull Long id) {
         if (id == null)
             throw new IllegalArgumentException("ID cannot be null");
+        inventoryItemRepository.findGroupIdById(id).ifPresent(groupId -> {
+            groupVersionService.markChanged(groupId);
+            itemSuggestIndex.itemRemoved(groupId, id);
+            changeFeed.publish(new ItemChangeEvent(ItemChangeEvent.Type.DELETED, groupId, id, null, null, null, 0));
+        });
         inventoryItemRepository.deleteById(id);
+        expiryAlertScheduler.itemRemoved(id);
     }
 
     @Transactional
@@ -48,17 +188,23 @@ public class InventoryItemService {
         InventoryItem existingItem = inventoryItemRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Item not found"));
 
+        // A version from the client makes this a conditional update that fails
+        // if the item changed since the client read it; without one the update
+        // replaces whatever is current
+        if (updatedItem.getVersion() != null && !updatedItem.getVersion().equals(existingItem.getVersion()))
+            throw new ObjectOptimisticLockingFailureException(InventoryItem.class, id);
+
         updatedItem.setId(id);
+        updatedItem.setVersion(existingItem.getVersion());
         updatedItem.setInventoryGroup(existingItem.getInventoryGroup());
 
-        Category category = categoryRepository.findByName(categoryName).orElseGet(() -> {
-            Category newCat = new Category();
-            newCat.setName(categoryName);
-            return categoryRepository.save(newCat);
-        });
-
-        updatedItem.setCategory(category);
-        return inventoryItemRepository.save(updatedItem);
+        updatedItem.setCategory(categoryCache.getOrCreate(categoryName));
+        groupVersionService.markChanged(existingItem.getInventoryGroup().getId());
+        InventoryItem saved = inventoryItemRepository.save(updatedItem);
+        itemSuggestIndex.itemSaved(existingItem.getInventoryGroup().getId(), saved);
+        expiryAlertScheduler.itemSaved(saved);
+        changeFeed.publish(change(ItemChangeEvent.Type.UPDATED, saved));
+        return saved;
     }
 
     @Transactional
@@ -70,22 +216,178 @@ public class InventoryItemService {
                 .orElseThrow(() -> new RuntimeException("Group not found"));
         item.setInventoryGroup(group);
 
-        // Hybrid Category Logic:
-        // 1. Try to find existing category (Global or Group-specific?? For now global
-        // name match)
-        Category category = categoryRepository.findByName(categoryName).orElseGet(() -> {
-            // 2. Not found, create new Custom Category
-            Category newCat = new Category();
-            newCat.setName(categoryName);
-            // The original logic for new categories included setting standard and group,
-            // but the provided edit simplifies this.
-            // newCat.setStandard(false);
-            // newCat.setInventoryGroup(group); // Custom to this group
-            return categoryRepository.save(newCat);
-        });
+        // Categories are global and matched by exact name; unknown names become
+        // new custom categories
+        item.setCategory(categoryCache.getOrCreate(categoryName));
+        groupVersionService.markChanged(groupId);
+        InventoryItem saved = inventoryItemRepository.save(item);
+        itemSuggestIndex.itemSaved(groupId, saved);
+        expiryAlertScheduler.itemSaved(saved);
+        changeFeed.publish(change(ItemChangeEvent.Type.ADDED, saved));
+        return saved;
+    }
 
-        item.setCategory(category);
-        return inventoryItemRepository.save(item);
+    /**
+     * Applies a mix of add/update/reduce/delete operations on the current
+     * user's groups in one transaction; if any of them fails, none are
+     * applied.
+     */
+    @Transactional
+    public List<ItemOperationResult> applyBatch(List<ItemOperation> operations) {
+        return applyBatch(operations, inventoryGroupService.getCurrentUserGroupIds(), false);
+    }
+
+    /**
+     * Set-based core of the batch API. Groups, categories and existing items
+     * are each loaded with one query up front, new items get their IDs from
+     * the pooled sequence so the inserts go out in JDBC batches, and updates
+     * are flushed as batched versioned UPDATEs.
+     *
+     * Operations may only touch groups in {@code allowedGroupIds}. With
+     * {@code skipInvalid}, an operation that is malformed or references a
+     * missing item/group gets a result carrying the error and the others are
+     * still applied; otherwise the first such operation fails the batch.
+     */
+    @Transactional
+    public List<ItemOperationResult> applyBatch(List<ItemOperation> operations, Collection<Long> allowedGroupIds,
+            boolean skipInvalid) {
+        if (operations == null || operations.isEmpty())
+            return List.of();
+        if (operations.size() > maxBatchOperations)
+            throw new IllegalArgumentException("At most " + maxBatchOperations + " operations per batch");
+
+        Set<Long> groupIds = new HashSet<>();
+        Set<Long> itemIds = new HashSet<>();
+        Set<String> categoryNames = new HashSet<>();
+        for (ItemOperation op : operations) {
+            if (validate(op) != null)
+                continue;
+            if (op.op() == ItemOperation.Type.ADD)
+                groupIds.add(op.groupId());
+            else
+                itemIds.add(op.id());
+            if (op.category() != null)
+                categoryNames.add(op.category());
+        }
+        groupIds.retainAll(allowedGroupIds);
+
+        Map<Long, InventoryGroup> groups = new HashMap<>();
+        for (InventoryGroup group : inventoryGroupRepository.findAllById(groupIds))
+            groups.put(group.getId(), group);
+        Map<Long, InventoryItem> items = new HashMap<>();
+        for (InventoryItem item : inventoryItemRepository.findAllById(itemIds)) {
+            if (allowedGroupIds.contains(item.getInventoryGroup().getId()))
+                items.put(item.getId(), item);
+        }
+        Map<String, Category> categories = categoryCache.getOrCreateAll(categoryNames);
+
+        // Group versions go first, in ID order: every write path locks the group
+        // row before its items, so two batches can't deadlock on them. Autocomplete
+        // indexes of these groups are dropped by the version bump and rebuilt
+        // lazily, cheaper than patching them once per item
+        Set<Long> changedGroups = new TreeSet<>(groups.keySet());
+        items.values().forEach(item -> changedGroups.add(item.getInventoryGroup().getId()));
+        changedGroups.forEach(groupVersionService::markChanged);
+
+        List<ItemOperationResult> results = new ArrayList<>(operations.size());
+        List<ItemChangeEvent> changes = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            ItemOperation op = operations.get(i);
+            String error = validate(op);
+            if (error == null && op.op() == ItemOperation.Type.ADD && !groups.containsKey(op.groupId()))
+                error = "Group not found: " + op.groupId();
+            if (error == null && op.op() != ItemOperation.Type.ADD && !items.containsKey(op.id()))
+                error = "Item not found: " + op.id();
+            if (error != null) {
+                if (!skipInvalid)
+                    throw new IllegalArgumentException(error);
+                results.add(new ItemOperationResult(i, op.op(), op.id(), null, false, error));
+                continue;
+            }
+
+            if (op.op() == ItemOperation.Type.ADD) {
+                InventoryGroup group = groups.get(op.groupId());
+                InventoryItem item = op.toNewItem();
+                item.setInventoryGroup(group);
+                item.setCategory(categories.get(op.category()));
+                // persist assigns the sequence ID right away; the INSERT waits for the batch
+                inventoryItemRepository.save(item);
+                expiryAlertScheduler.itemSaved(item);
+                items.put(item.getId(), item);
+                changes.add(change(ItemChangeEvent.Type.ADDED, item));
+                results.add(new ItemOperationResult(i, op.op(), item.getId(), item.getQuantity(), false, null));
+                continue;
+            }
+
+            InventoryItem item = items.get(op.id());
+            boolean removed = false;
+            switch (op.op()) {
+                case UPDATE -> {
+                    if (op.name() != null)
+                        item.setName(op.name());
+                    if (op.quantity() != null)
+                        item.setQuantity(op.quantity());
+                    if (op.category() != null)
+                        item.setCategory(categories.get(op.category()));
+                    if (op.expiryDate() != null && item instanceof ExpirableItem expirable)
+                        expirable.setExpiryDate(op.expiryDate());
+                    if (op.condition() != null && item instanceof ConditionBasedItem conditionBased)
+                        conditionBased.setCondition(op.condition());
+                }
+                case REDUCE -> {
+                    int left = item.getQuantity() != null ? item.getQuantity() - op.amount() : 0;
+                    if (left <= 0) {
+                        removed = true;
+                    } else {
+                        item.setQuantity(left);
+                    }
+                }
+                case DELETE -> removed = true;
+                default -> throw new IllegalArgumentException("Unsupported operation: " + op.op());
+            }
+            if (removed) {
+                inventoryItemRepository.delete(item);
+                items.remove(op.id());
+                expiryAlertScheduler.itemRemoved(op.id());
+                changes.add(new ItemChangeEvent(ItemChangeEvent.Type.DELETED, item.getInventoryGroup().getId(),
+                        op.id(), null, null, null, 0));
+            } else if (op.op() == ItemOperation.Type.UPDATE) {
+                expiryAlertScheduler.itemSaved(item);
+                changes.add(change(ItemChangeEvent.Type.UPDATED, item));
+            } else {
+                changes.add(change(ItemChangeEvent.Type.QUANTITY_CHANGED, item));
+            }
+            results.add(new ItemOperationResult(i, op.op(), op.id(), removed ? null : item.getQuantity(), removed,
+                    null));
+        }
+
+        changeFeed.publishAll(changes);
+        return results;
+    }
+
+    private static ItemChangeEvent change(ItemChangeEvent.Type type, InventoryItem item) {
+        return new ItemChangeEvent(type, item.getInventoryGroup().getId(), item.getId(), item.getName(),
+                item.getQuantity(), null, 0);
+    }
+
+    // Checks that don't need the database; null when the operation is well-formed
+    private static String validate(ItemOperation op) {
+        if (op.op() == null)
+            return "Operation type must be provided";
+        if (op.op() == ItemOperation.Type.ADD) {
+            if (op.groupId() == null || op.name() == null || op.name().isBlank() || op.category() == null)
+                return "ADD needs groupId, name and category";
+            if (op.quantity() == null || op.quantity() <= 0)
+                return "Quantity must be positive";
+        } else if (op.id() == null) {
+            return op.op() + " needs an item id";
+        }
+        // UPDATE leaves the quantity alone when it is omitted
+        if (op.op() == ItemOperation.Type.UPDATE && op.quantity() != null && op.quantity() <= 0)
+            return "Quantity must be positive";
+        if (op.op() == ItemOperation.Type.REDUCE && (op.amount() == null || op.amount() <= 0))
+            return "Amount must be positive";
+        return null;
     }
 
     @Transactional
@@ -95,20 +397,33 @@ public class InventoryItemService {
         if (amount <= 0)
             throw new IllegalArgumentException("Amount must be positive");
 
-        InventoryItem item = inventoryItemRepository.findById(id)
+        Long groupId = inventoryItemRepository.findGroupIdById(id)
                 .orElseThrow(() -> new RuntimeException("Item not found"));
+        groupVersionService.markChanged(groupId);
 
-        if (item.getQuantity() == null) {
-            inventoryItemRepository.delete(item);
+        // Common case: one conditional UPDATE, no entity load, no lost updates
+        if (inventoryItemRepository.decrementQuantity(id, amount) == 1) {
+            itemSuggestIndex.itemQuantityReduced(groupId, id, amount);
+            changeFeed.publish(new ItemChangeEvent(ItemChangeEvent.Type.QUANTITY_CHANGED, groupId, id, null, null,
+                    -amount, 0));
             return;
         }
 
-        int newQty = item.getQuantity() - amount;
-        if (newQty <= 0) {
-            inventoryItemRepository.delete(item);
+        // Reducing to zero or below (or no quantity) removes the item. The
+        // version check on delete/update fails the call if someone else
+        // changed the item in the meantime.
+        InventoryItem item = inventoryItemRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Item not found"));
+        if (item.getQuantity() != null && item.getQuantity() > amount) {
+            // Topped up since the UPDATE above
+            item.setQuantity(item.getQuantity() - amount);
+            itemSuggestIndex.itemSaved(groupId, inventoryItemRepository.save(item));
+            changeFeed.publish(change(ItemChangeEvent.Type.QUANTITY_CHANGED, item));
         } else {
-            item.setQuantity(newQty);
-            inventoryItemRepository.save(item);
+            inventoryItemRepository.delete(item);
+            itemSuggestIndex.itemRemoved(groupId, id);
+            expiryAlertScheduler.itemRemoved(id);
+            changeFeed.publish(new ItemChangeEvent(ItemChangeEvent.Type.DELETED, groupId, id, null, null, null, 0));
         }
     }
 }
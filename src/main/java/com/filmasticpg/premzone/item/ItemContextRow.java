@@ -0,0 +1,28 @@
+package com.filmasticpg.premzone.item;
+
+import java.time.LocalDate;
+
+/**
+ * Flat, read-only view of an item with just what the AI context needs.
+ * expiryDate is null for non-expirable items.
+ */
+public record ItemContextRow(Long id, Long groupId, String name, Integer quantity, String categoryName,
+        LocalDate expiryDate) {
+
+    /**
+     * One line of the AI inventory listing, e.g.
+     * "  - [ID: 12] Milk (Qty: 2) [Category: Dairy] [Expires: 2025-01-31]".
+     */
+    public String toPromptLine() {
+        StringBuilder line = new StringBuilder(64)
+                .append("  - [ID: ").append(id).append("] ")
+                .append(name)
+                .append(" (Qty: ").append(quantity).append(")")
+                .append(" [Category: ").append(categoryName != null ? categoryName : "Unknown")
+                .append("]");
+        if (expiryDate != null) {
+            line.append(" [Expires: ").append(expiryDate).append("]");
+        }
+        return line.append("\n").toString();
+    }
+}
@@ -0,0 +1,13 @@
+package com.filmasticpg.premzone.item;
+
+import java.time.LocalDate;
+
+/**
+ * Flat view of an item for group listings. type is the label the add/edit
+ * form uses ("Food", "Electronics", ...); expiryDate and condition are null
+ * when they don't apply to the item's type. version is what the edit form
+ * sends back as If-Match.
+ */
+public record ItemListRow(Long id, String name, Integer quantity, String type, Long categoryId,
+        String categoryName, LocalDate expiryDate, ItemCondition condition, Long version) {
+}
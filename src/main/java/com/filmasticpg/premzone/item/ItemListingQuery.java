@@ -0,0 +1,128 @@
+package com.filmasticpg.premzone.item;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Keyset-paginated listing of a group's items as {@link ItemListRow}s.
+ *
+ * Every page is a single query: the subclass tables are left-joined for
+ * expiry and condition, and pages continue from the (sort key, id) of the
+ * last row instead of an OFFSET. The cursor handed to clients is that pair,
+ * base64-encoded.
+ *
+ * On Postgres the NAME and QUANTITY sorts are backed by (group_id, key, id)
+ * indexes (db/postgresql/search-indexes.sql), so page N costs the same as
+ * page 1. EXPIRY has no such index and sorts the whole group on every page.
+ */
+@Repository
+public class ItemListingQuery {
+
+    // Sorts items without an expiry date after all dated ones
+    private static final LocalDate NO_EXPIRY = LocalDate.of(9999, 12, 31);
+
+    private static final String SELECT = """
+            select new com.filmasticpg.premzone.item.ItemListRow(
+                i.id, i.name, i.quantity,
+                case type(i)
+                    when FoodItem then 'Food'
+                    when MedicalItem then 'Medical'
+                    when PantryItem then 'Pantry'
+                    when ElectronicItem then 'Electronics'
+                    when SupplyItem then 'Supply'
+                end,
+                c.id, c.name, e.expiryDate, ci.condition, i.version)
+            from InventoryItem i
+            join i.category c
+            left join ExpirableItem e on e.id = i.id
+            left join ConditionBasedItem ci on ci.id = i.id
+            where i.inventoryGroup.id = :groupId
+            """;
+
+    private final EntityManager entityManager;
+
+    public ItemListingQuery(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public ItemPage page(Long groupId, ItemSort sort, boolean descending, String cursor, int size) {
+        String key = sort.expression();
+        String cmp = descending ? "<" : ">";
+        String dir = descending ? " desc" : " asc";
+
+        StringBuilder jpql = new StringBuilder(SELECT);
+        Cursor after = cursor != null && !cursor.isBlank() ? Cursor.decode(cursor) : null;
+        if (after != null) {
+            // The redundant bound gives the planner a start key for the index scan,
+            // which it can't derive from the OR alone
+            jpql.append(" and ").append(key).append(' ').append(cmp).append("= :afterKey")
+                    .append(" and (").append(key).append(' ').append(cmp).append(" :afterKey or (")
+                    .append(key).append(" = :afterKey and i.id ").append(cmp).append(" :afterId))");
+        }
+        jpql.append(" order by ").append(key).append(dir).append(", i.id").append(dir);
+
+        TypedQuery<ItemListRow> query = entityManager.createQuery(jpql.toString(), ItemListRow.class)
+                .setParameter("groupId", groupId)
+                .setMaxResults(size + 1);
+        if (sort == ItemSort.EXPIRY) {
+            query.setParameter("noExpiry", NO_EXPIRY);
+        }
+        if (after != null) {
+            query.setParameter("afterKey", after.keyValue(sort))
+                    .setParameter("afterId", after.id());
+        }
+
+        List<ItemListRow> rows = query.getResultList();
+        if (rows.size() <= size) {
+            return new ItemPage(rows, null);
+        }
+        List<ItemListRow> items = rows.subList(0, size);
+        return new ItemPage(List.copyOf(items), Cursor.of(sort, items.get(size - 1)).encode());
+    }
+
+    private record Cursor(String key, Long id) {
+
+        static Cursor of(ItemSort sort, ItemListRow row) {
+            String key = switch (sort) {
+                case NAME -> row.name().toLowerCase(Locale.ROOT);
+                case EXPIRY -> (row.expiryDate() != null ? row.expiryDate() : NO_EXPIRY).toString();
+                case QUANTITY -> String.valueOf(row.quantity() != null ? row.quantity() : 0);
+            };
+            return new Cursor(key, row.id());
+        }
+
+        Object keyValue(ItemSort sort) {
+            try {
+                return switch (sort) {
+                    case NAME -> key;
+                    case EXPIRY -> LocalDate.parse(key);
+                    case QUANTITY -> Integer.valueOf(key);
+                };
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor does not match sort " + sort);
+            }
+        }
+
+        String encode() {
+            String raw = id + ":" + key;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = raw.indexOf(':');
+                return new Cursor(raw.substring(sep + 1), Long.valueOf(raw.substring(0, sep)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+}
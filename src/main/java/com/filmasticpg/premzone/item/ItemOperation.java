@@ -0,0 +1,60 @@
+package com.filmasticpg.premzone.item;
+
+import java.time.LocalDate;
+
+/**
+ * One entry of a batch request (POST /api/v1/items/batch). Which fields are
+ * used depends on op:
+ * <ul>
+ * <li>ADD: groupId, type, name, category, quantity, expiryDate/condition</li>
+ * <li>UPDATE: id plus any of name, category, quantity, expiryDate/condition
+ * (null fields are left unchanged; the type can't be changed)</li>
+ * <li>REDUCE: id, amount</li>
+ * <li>DELETE: id</li>
+ * </ul>
+ */
+public record ItemOperation(Type op, Long id, Long groupId, String type, String name, String category,
+        Integer quantity, LocalDate expiryDate, ItemCondition condition, Integer amount) {
+
+    public enum Type {
+        ADD, UPDATE, REDUCE, DELETE
+    }
+
+    /**
+     * New, unsaved item of the requested type ("Food" if not given), same
+     * types as the single-item endpoints.
+     */
+    InventoryItem toNewItem() {
+        InventoryItem item;
+        switch (type != null ? type : "Food") {
+            case "Electronics" -> {
+                ElectronicItem eItem = new ElectronicItem();
+                eItem.setCondition(condition);
+                item = eItem;
+            }
+            case "Supply" -> {
+                SupplyItem sItem = new SupplyItem();
+                sItem.setCondition(condition);
+                item = sItem;
+            }
+            case "Medical" -> {
+                MedicalItem mItem = new MedicalItem();
+                mItem.setExpiryDate(expiryDate);
+                item = mItem;
+            }
+            case "Pantry" -> {
+                PantryItem pItem = new PantryItem();
+                pItem.setExpiryDate(expiryDate);
+                item = pItem;
+            }
+            default -> {
+                FoodItem fItem = new FoodItem();
+                fItem.setExpiryDate(expiryDate);
+                item = fItem;
+            }
+        }
+        item.setName(name);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
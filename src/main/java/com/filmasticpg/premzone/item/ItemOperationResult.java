@@ -0,0 +1,11 @@
+package com.filmasticpg.premzone.item;
+
+/**
+ * Outcome of one batch operation, in request order. quantity is the item's
+ * quantity afterwards; removed is true when a DELETE or a REDUCE to zero
+ * took the item out. error is set (and nothing was changed) when the
+ * operation was skipped as invalid.
+ */
+public record ItemOperationResult(int index, ItemOperation.Type op, Long id, Integer quantity, boolean removed,
+        String error) {
+}
@@ -0,0 +1,10 @@
+package com.filmasticpg.premzone.item;
+
+import java.util.List;
+
+/**
+ * One page of a group listing. nextCursor is passed back as {@code cursor}
+ * to get the following page and is null on the last one.
+ */
+public record ItemPage(List<ItemListRow> items, String nextCursor) {
+}
@@ -0,0 +1,14 @@
+package com.filmasticpg.premzone.item;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Ranked name/category search over the items of a set of groups.
+ * Selected with premzone.search.engine: "postgres" (trigram indexes, the
+ * default) or "jpa" (portable, ranks in memory; meant for H2/tests).
+ */
+public interface ItemSearchEngine {
+
+    List<ItemSearchHit> search(Collection<Long> groupIds, String query, int page, int size);
+}
@@ -0,0 +1,10 @@
+package com.filmasticpg.premzone.item;
+
+import java.time.LocalDate;
+
+/**
+ * One ranked result of an item search. Higher score = better match.
+ */
+public record ItemSearchHit(Long id, Long groupId, String name, Integer quantity, String categoryName,
+        LocalDate expiryDate, double score) {
+}
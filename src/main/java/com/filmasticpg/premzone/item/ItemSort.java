@@ -0,0 +1,24 @@
+package com.filmasticpg.premzone.item;
+
+/**
+ * Sort orders for group listings. Each maps to the JPQL expression used both
+ * for ordering and for the keyset condition; nulls are folded into a
+ * sentinel so the keyset comparison stays a plain {@code <} / {@code >}.
+ * NAME and QUANTITY have expression indexes in db/postgresql/search-indexes.sql
+ * that must be changed along with them.
+ */
+public enum ItemSort {
+    NAME("lower(i.name)"),
+    EXPIRY("coalesce(e.expiryDate, :noExpiry)"),
+    QUANTITY("coalesce(i.quantity, 0)");
+
+    private final String expression;
+
+    ItemSort(String expression) {
+        this.expression = expression;
+    }
+
+    String expression() {
+        return expression;
+    }
+}
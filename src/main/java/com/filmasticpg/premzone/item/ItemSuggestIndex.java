@@ -0,0 +1,236 @@
+package com.filmasticpg.premzone.item;
+
+import com.filmasticpg.premzone.group.GroupVersionService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * In-memory prefix index of item names, one per group, for autocomplete.
+ *
+ * Each group's index is an immutable array of (key, item) entries sorted by
+ * key, with one entry per word of the name ("oat milk" is found by "oat" and
+ * "mil"), so a lookup is a binary search plus a short scan. Indexes are
+ * built lazily from the database, patched in place by
+ * {@link InventoryItemService} after each committed change, and dropped when
+ * the group hasn't been used for a while or the total entry count goes over
+ * the configured bound.
+ */
+@Component
+public class ItemSuggestIndex {
+
+    record Entry(String key, ItemSuggestion item) {
+    }
+
+    record GroupIndex(long version, Entry[] entries) {
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::key)
+            .thenComparing(e -> e.item().id());
+
+    private final InventoryItemRepository inventoryItemRepository;
+    private final GroupVersionService groupVersionService;
+    private final Cache<Long, GroupIndex> indexes;
+
+    public ItemSuggestIndex(InventoryItemRepository inventoryItemRepository,
+            GroupVersionService groupVersionService,
+            MeterRegistry meterRegistry,
+            @Value("${premzone.items.suggest.max-entries:200000}") long maxEntries,
+            @Value("${premzone.items.suggest.idle-timeout:30m}") Duration idleTimeout) {
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.groupVersionService = groupVersionService;
+        this.indexes = Caffeine.newBuilder()
+                .maximumWeight(maxEntries)
+                .weigher((Long groupId, GroupIndex index) -> index.entries().length + 1)
+                .expireAfterAccess(idleTimeout)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, indexes, "item.suggest");
+    }
+
+    /**
+     * Items of the group with a word starting with {@code prefix}, best
+     * (whole-name prefix, then shortest name) first.
+     */
+    public List<ItemSuggestion> suggest(Long groupId, String prefix, int limit) {
+        String p = normalize(prefix);
+        if (p.isEmpty()) {
+            return List.of();
+        }
+        Entry[] entries = indexFor(groupId).entries();
+
+        int i = lowerBound(entries, p);
+        List<Entry> matches = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        // Scan a bit past the limit so whole-name matches can win over word matches
+        while (i < entries.length && entries[i].key().startsWith(p) && matches.size() < limit * 4) {
+            if (seen.add(entries[i].item().id())) {
+                matches.add(entries[i]);
+            }
+            i++;
+        }
+        return matches.stream()
+                .sorted(Comparator.<Entry>comparingInt(e -> normalize(e.item().name()).startsWith(p) ? 0 : 1)
+                        .thenComparingInt(e -> e.item().name().length())
+                        .thenComparing(e -> e.item().id()))
+                .limit(limit)
+                .map(Entry::item)
+                .toList();
+    }
+
+    /**
+     * Adds or replaces the item in its group's index once the current
+     * transaction commits.
+     */
+    public void itemSaved(Long groupId, InventoryItem item) {
+        ItemSuggestion suggestion = new ItemSuggestion(item.getId(), item.getName(), item.getQuantity());
+        afterCommit(groupId, entries -> {
+            List<Entry> updated = new ArrayList<>(entries.length + 2);
+            for (Entry e : entries) {
+                if (!e.item().id().equals(suggestion.id())) {
+                    updated.add(e);
+                }
+            }
+            updated.addAll(entriesFor(suggestion));
+            return updated;
+        });
+    }
+
+    /**
+     * Lowers the quantity shown for the item once the current transaction
+     * commits, for decrements done directly in the database.
+     */
+    public void itemQuantityReduced(Long groupId, Long itemId, int amount) {
+        afterCommit(groupId, entries -> {
+            List<Entry> updated = new ArrayList<>(entries.length);
+            for (Entry e : entries) {
+                ItemSuggestion item = e.item();
+                if (item.id().equals(itemId) && item.quantity() != null) {
+                    item = new ItemSuggestion(item.id(), item.name(), item.quantity() - amount);
+                }
+                updated.add(new Entry(e.key(), item));
+            }
+            return updated;
+        });
+    }
+
+    /**
+     * Removes the item from its group's index once the current transaction
+     * commits.
+     */
+    public void itemRemoved(Long groupId, Long itemId) {
+        afterCommit(groupId, entries -> {
+            List<Entry> updated = new ArrayList<>(entries.length);
+            for (Entry e : entries) {
+                if (!e.item().id().equals(itemId)) {
+                    updated.add(e);
+                }
+            }
+            return updated;
+        });
+    }
+
+    private interface Patch {
+        List<Entry> apply(Entry[] entries);
+    }
+
+    private void afterCommit(Long groupId, Patch patch) {
+        if (groupId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(groupId, patch);
+                }
+            });
+        } else {
+            apply(groupId, patch);
+        }
+    }
+
+    /**
+     * Patches a loaded index. The group version has already been bumped for
+     * this change, so the patch only applies on top of the version right
+     * before it; if other changes raced in between, the index is dropped and
+     * rebuilt on the next lookup instead.
+     */
+    private void apply(Long groupId, Patch patch) {
+        long current = groupVersionService.currentVersion(groupId);
+        indexes.asMap().computeIfPresent(groupId, (id, index) -> {
+            if (index.version() != current - 1) {
+                return null;
+            }
+            Entry[] entries = patch.apply(index.entries()).toArray(Entry[]::new);
+            Arrays.sort(entries, ORDER);
+            return new GroupIndex(current, entries);
+        });
+    }
+
+    private GroupIndex indexFor(Long groupId) {
+        long current = groupVersionService.currentVersion(groupId);
+        GroupIndex index = indexes.getIfPresent(groupId);
+        if (index != null && index.version() == current) {
+            return index;
+        }
+        // Version is read before the query, so a change committed meanwhile
+        // leaves this index stale and it gets rebuilt next time
+        List<Entry> entries = new ArrayList<>();
+        for (ItemSuggestion item : inventoryItemRepository.findSuggestionsByGroupId(groupId)) {
+            entries.addAll(entriesFor(item));
+        }
+        Entry[] sorted = entries.toArray(Entry[]::new);
+        Arrays.sort(sorted, ORDER);
+        GroupIndex built = new GroupIndex(current, sorted);
+        indexes.put(groupId, built);
+        return built;
+    }
+
+    private static List<Entry> entriesFor(ItemSuggestion item) {
+        String name = normalize(item.name());
+        if (name.isEmpty()) {
+            return List.of();
+        }
+        List<Entry> entries = new ArrayList<>(2);
+        entries.add(new Entry(name, item));
+        for (int i = 1; i < name.length(); i++) {
+            if (name.charAt(i - 1) == ' ') {
+                entries.add(new Entry(name.substring(i), item));
+            }
+        }
+        return entries;
+    }
+
+    private static int lowerBound(Entry[] entries, String key) {
+        int lo = 0;
+        int hi = entries.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (entries[mid].key().compareTo(key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static String normalize(String s) {
+        return s == null ? "" : s.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,8 @@
+package com.filmasticpg.premzone.item;
+
+/**
+ * One autocomplete suggestion: enough to fill in an item name or pick the
+ * item to reduce.
+ */
+public record ItemSuggestion(Long id, String name, Integer quantity) {
+}
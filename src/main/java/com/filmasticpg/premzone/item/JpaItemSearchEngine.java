@@ -0,0 +1,59 @@
+package com.filmasticpg.premzone.item;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Portable fallback for databases without pg_trgm (e.g. H2 in tests).
+ * Filters with a group-scoped LIKE in the database and ranks the candidates
+ * in memory with the same ordering as the Postgres engine. On a database
+ * other than Postgres, also set spring.sql.init.platform so the Postgres
+ * index scripts are skipped.
+ */
+@Component
+@ConditionalOnProperty(name = "premzone.search.engine", havingValue = "jpa")
+public class JpaItemSearchEngine implements ItemSearchEngine {
+
+    // Upper bound on candidates ranked in memory per search
+    private static final int MAX_CANDIDATES = 1000;
+
+    private final InventoryItemRepository inventoryItemRepository;
+
+    public JpaItemSearchEngine(InventoryItemRepository inventoryItemRepository) {
+        this.inventoryItemRepository = inventoryItemRepository;
+    }
+
+    @Override
+    public List<ItemSearchHit> search(Collection<Long> groupIds, String query, int page, int size) {
+        String q = query.trim().toLowerCase(Locale.ROOT);
+        return inventoryItemRepository.searchContextRows(groupIds, q, Limit.of(MAX_CANDIDATES)).stream()
+                .map(row -> new ItemSearchHit(row.id(), row.groupId(), row.name(), row.quantity(),
+                        row.categoryName(), row.expiryDate(), score(row, q)))
+                .sorted(Comparator.comparingDouble(ItemSearchHit::score).reversed()
+                        .thenComparing(ItemSearchHit::id))
+                .skip((long) page * size)
+                .limit(size)
+                .toList();
+    }
+
+    private static double score(ItemContextRow row, String q) {
+        String name = row.name() != null ? row.name().toLowerCase(Locale.ROOT) : "";
+        if (name.equals(q)) {
+            return 3.0;
+        }
+        if (name.startsWith(q)) {
+            return 2.0 + (double) q.length() / Math.max(name.length(), 1);
+        }
+        if (name.contains(q)) {
+            return 1.0 + (double) q.length() / Math.max(name.length(), 1);
+        }
+        // Matched on category only
+        return 0.5;
+    }
+}
@@ -0,0 +1,74 @@
+package com.filmasticpg.premzone.item;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Item search using pg_trgm. The LIKE '%q%' and % (similarity) filters are
+ * served by the trigram GIN index on lower(name) (see
+ * db/postgresql/search-indexes.sql), and results are ranked exact match >
+ * prefix match > trigram similarity.
+ */
+@Component
+@ConditionalOnProperty(name = "premzone.search.engine", havingValue = "postgres", matchIfMissing = true)
+public class PostgresItemSearchEngine implements ItemSearchEngine {
+
+    // Formatted with where expiry_date comes from, which depends on premzone.items.storage
+    // (hence %% for the pg_trgm similarity operator)
+    private static final String SEARCH_SQL = """
+            SELECT i.id, i.group_id, i.name, i.quantity, c.name AS category_name, %s AS expiry_date,
+                   GREATEST(similarity(lower(i.name), :q), similarity(lower(c.name), :q)) AS score
+            FROM inventory_item i
+            JOIN category c ON c.id = i.category_id
+            %s
+            WHERE i.group_id IN (:groupIds)
+              AND (lower(i.name) LIKE :contains OR lower(i.name) %% :q OR lower(c.name) LIKE :contains)
+            ORDER BY (lower(i.name) = :q) DESC, (lower(i.name) LIKE :prefix) DESC, score DESC, i.id
+            LIMIT :limit OFFSET :offset
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String searchSql;
+
+    public PostgresItemSearchEngine(NamedParameterJdbcTemplate jdbcTemplate,
+            @Value("${premzone.items.storage:joined}") String storage) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.searchSql = "single-table".equals(storage)
+                ? SEARCH_SQL.formatted("i.expiry_date", "")
+                : SEARCH_SQL.formatted("e.expiry_date", "LEFT JOIN expirable_item e ON e.id = i.id");
+    }
+
+    @Override
+    public List<ItemSearchHit> search(Collection<Long> groupIds, String query, int page, int size) {
+        String q = query.trim().toLowerCase(Locale.ROOT);
+        String escaped = q.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("groupIds", groupIds)
+                .addValue("q", q)
+                .addValue("contains", "%" + escaped + "%")
+                .addValue("prefix", escaped + "%")
+                .addValue("limit", size)
+                .addValue("offset", (long) page * size);
+
+        return jdbcTemplate.query(searchSql, params, (rs, rowNum) -> {
+            Date expiry = rs.getDate("expiry_date");
+            return new ItemSearchHit(
+                    rs.getLong("id"),
+                    rs.getLong("group_id"),
+                    rs.getString("name"),
+                    (Integer) rs.getObject("quantity"),
+                    rs.getString("category_name"),
+                    expiry != null ? expiry.toLocalDate() : null,
+                    rs.getDouble("score"));
+        });
+    }
+}
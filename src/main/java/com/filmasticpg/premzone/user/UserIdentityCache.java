@@ -0,0 +1,56 @@
+package com.filmasticpg.premzone.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Caches the JWT subject -> AppUser identity mapping so that authenticated
+ * requests don't need a SELECT (and UPDATE) on app_user every time.
+ * Entries expire after a TTL and the cache is size-bounded.
+ * Hit/miss stats are published under the "user.identity" cache metrics.
+ */
+@Component
+public class UserIdentityCache {
+
+    /**
+     * Snapshot of the claims we last synced to the database for a subject.
+     */
+    public record CachedIdentity(Long userId, String email, String displayName) {
+
+        public boolean matches(String email, String displayName) {
+            return Objects.equals(this.email, email) && Objects.equals(this.displayName, displayName);
+        }
+    }
+
+    private final Cache<String, CachedIdentity> cache;
+
+    public UserIdentityCache(MeterRegistry meterRegistry,
+            @Value("${premzone.user-cache.ttl:10m}") Duration ttl,
+            @Value("${premzone.user-cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user.identity");
+    }
+
+    public CachedIdentity get(String subject) {
+        return cache.getIfPresent(subject);
+    }
+
+    public void put(String subject, AppUser user) {
+        cache.put(subject, new CachedIdentity(user.getId(), user.getEmail(), user.getDisplayName()));
+    }
+
+    public void evict(String subject) {
+        cache.invalidate(subject);
+    }
+}
@@ -1,17 +1,31 @@
 package com.filmasticpg.premzone.user;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 public class UserService {
 
+    private final AppUserRepository appUserRepository;
+    private final UserIdentityCache userIdentityCache;
+    private final Counter syncWrites;
+
     @Autowired
-    private AppUserRepository appUserRepository;
+    public UserService(AppUserRepository appUserRepository, UserIdentityCache userIdentityCache,
+            MeterRegistry meterRegistry) {
+        this.appUserRepository = appUserRepository;
+        this.userIdentityCache = userIdentityCache;
+        this.syncWrites = Counter.builder("user.sync.writes")
+                .description("app_user rows inserted or updated while syncing JWT claims")
+                .register(meterRegistry);
+    }
 
     public AppUser syncUser(Jwt jwt) {
         String email = jwt.getClaimAsString("email");
@@ -27,6 +41,19 @@ public class UserService {
             email = sub + "@premzone.auth0";
         }
 
+        // Fast path: claims haven't changed since the last sync, so skip the
+        // username lookup and the write. The user is still loaded by primary key
+        // (free if it's already in the persistence context): callers store it on
+        // groups and serialize it, which an uninitialised proxy can't survive
+        UserIdentityCache.CachedIdentity cached = userIdentityCache.get(sub);
+        if (cached != null && cached.matches(email, displayName)) {
+            Optional<AppUser> loaded = appUserRepository.findById(cached.userId());
+            if (loaded.isPresent()) {
+                return loaded.get();
+            }
+            userIdentityCache.evict(sub);
+        }
+
         // Try to find by email first
         Optional<AppUser> existingUser = appUserRepository.findByUsername(sub); // storing sub as username for
                                                                                 // uniqueness
@@ -34,6 +61,11 @@ public class UserService {
         AppUser user;
         if (existingUser.isPresent()) {
             user = existingUser.get();
+            // Only write when the claims actually changed
+            if (email.equals(user.getEmail()) && Objects.equals(displayName, user.getDisplayName())) {
+                userIdentityCache.put(sub, user);
+                return user;
+            }
         } else {
             user = new AppUser();
             user.setUsername(sub); // Use Auth0 ID as username to guarantee uniqueness
@@ -41,10 +73,12 @@ public class UserService {
             user.setPassword("{noop}oauth2user"); // Dummy password
         }
 
-        // Always update details
         user.setEmail(email);
         user.setDisplayName(displayName);
 
-        return appUserRepository.save(user);
+        AppUser saved = appUserRepository.save(user);
+        syncWrites.increment();
+        userIdentityCache.put(sub, saved);
+        return saved;
     }
 }
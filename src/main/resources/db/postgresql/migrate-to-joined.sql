@@ -0,0 +1,23 @@
+-- Reverse of migrate-to-single-table.sql: copies items written in single-table
+-- mode back into the JOINED subclass tables. Run with the application stopped,
+-- before starting without the single-table profile.
+BEGIN;
+
+INSERT INTO expirable_item (id, expiry_date)
+SELECT id, expiry_date FROM inventory_item WHERE item_type IN ('Food', 'Medical', 'Pantry')
+ON CONFLICT (id) DO UPDATE SET expiry_date = EXCLUDED.expiry_date;
+
+INSERT INTO condition_item (id, condition)
+SELECT id, condition FROM inventory_item WHERE item_type IN ('Electronics', 'Supply')
+ON CONFLICT (id) DO UPDATE SET condition = EXCLUDED.condition;
+
+INSERT INTO food_item (id) SELECT id FROM inventory_item WHERE item_type = 'Food' ON CONFLICT DO NOTHING;
+INSERT INTO medical_item (id) SELECT id FROM inventory_item WHERE item_type = 'Medical' ON CONFLICT DO NOTHING;
+INSERT INTO pantry_item (id) SELECT id FROM inventory_item WHERE item_type = 'Pantry' ON CONFLICT DO NOTHING;
+INSERT INTO electronic_item (id) SELECT id FROM inventory_item WHERE item_type = 'Electronics' ON CONFLICT DO NOTHING;
+INSERT INTO supply_item (id) SELECT id FROM inventory_item WHERE item_type = 'Supply' ON CONFLICT DO NOTHING;
+
+-- JOINED mode doesn't write the discriminator
+ALTER TABLE inventory_item ALTER COLUMN item_type DROP NOT NULL;
+
+COMMIT;
@@ -0,0 +1,40 @@
+-- Moves items from the JOINED layout (inventory_item + expirable_item/condition_item
+-- + one table per concrete type) into inventory_item alone, for the single-table
+-- profile. Run once, with the application stopped, before starting with that profile.
+-- Reverse with migrate-to-joined.sql.
+BEGIN;
+
+ALTER TABLE inventory_item ADD COLUMN IF NOT EXISTS item_type varchar(31);
+ALTER TABLE inventory_item ADD COLUMN IF NOT EXISTS expiry_date date;
+ALTER TABLE inventory_item ADD COLUMN IF NOT EXISTS condition varchar(255);
+
+UPDATE inventory_item i SET item_type = CASE
+        WHEN EXISTS (SELECT 1 FROM food_item t WHERE t.id = i.id) THEN 'Food'
+        WHEN EXISTS (SELECT 1 FROM medical_item t WHERE t.id = i.id) THEN 'Medical'
+        WHEN EXISTS (SELECT 1 FROM pantry_item t WHERE t.id = i.id) THEN 'Pantry'
+        WHEN EXISTS (SELECT 1 FROM electronic_item t WHERE t.id = i.id) THEN 'Electronics'
+        WHEN EXISTS (SELECT 1 FROM supply_item t WHERE t.id = i.id) THEN 'Supply'
+    END;
+
+-- Recomputed for every row, so columns left over from an earlier round trip
+-- are overwritten
+UPDATE inventory_item i SET
+    expiry_date = (SELECT e.expiry_date FROM expirable_item e WHERE e.id = i.id),
+    condition = (SELECT c.condition FROM condition_item c WHERE c.id = i.id);
+
+ALTER TABLE inventory_item ALTER COLUMN item_type SET NOT NULL;
+
+-- The subclass rows reference inventory_item and would block deletes once
+-- Hibernate stops maintaining them; their data now lives in inventory_item.
+DELETE FROM food_item;
+DELETE FROM medical_item;
+DELETE FROM pantry_item;
+DELETE FROM electronic_item;
+DELETE FROM supply_item;
+DELETE FROM expirable_item;
+DELETE FROM condition_item;
+
+-- Expiring/expired listings filter by group and range-scan the date
+CREATE INDEX IF NOT EXISTS idx_inventory_item_group_expiry ON inventory_item (group_id, expiry_date);
+
+COMMIT;
@@ -0,0 +1,13 @@
+-- Indexes backing PostgresItemSearchEngine and the keyset listing in ItemListingQuery.
+-- Runs after Hibernate has created/updated the tables
+-- (spring.jpa.defer-datasource-initialization) and is safe to re-run.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_inventory_item_name_trgm ON inventory_item USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_category_name_trgm ON category USING gin (lower(name) gin_trgm_ops);
+
+-- Keyset listing by name and by quantity: the expressions must match ItemSort's
+-- exactly, so a page is an index range scan from the cursor. Expiry has no such
+-- index because expiry_date lives in expirable_item, away from group_id, in the
+-- joined layout; that sort reads the whole group through idx_inventory_item_group_id.
+CREATE INDEX IF NOT EXISTS idx_inventory_item_group_name ON inventory_item (group_id, lower(name), id);
+CREATE INDEX IF NOT EXISTS idx_inventory_item_group_quantity ON inventory_item (group_id, coalesce(quantity, 0), id);
@@ -0,0 +1,6 @@
+-- inventory_item IDs used to come from an identity column; since switching to
+-- the pooled inventory_item_seq, the sequence must stay ahead of the IDs already
+-- in the table. Never moves the sequence backwards, so it is safe to re-run.
+SELECT setval('inventory_item_seq', GREATEST(
+        (SELECT last_value FROM inventory_item_seq),
+        (SELECT COALESCE(MAX(id), 0) FROM inventory_item) + 50));
@@ -0,0 +1,133 @@
+package com.filmasticpg.premzone;
+
+import com.filmasticpg.premzone.group.InventoryGroup;
+import com.filmasticpg.premzone.group.InventoryGroupService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.IntConsumer;
+
+/**
+ * Helpers shared by the Spring tests and the gated benchmarks: signing in a
+ * test user (on the thread or for a MockMvc request), cleaning up its groups, Hibernate statement counts and latency
+ * percentiles.
+ */
+public final class TestSupport {
+
+	private TestSupport() {
+	}
+
+	/**
+	 * Signs in a JWT user with the given subject (email subject@example.com)
+	 * on the current thread. The user is created on first use.
+	 */
+	public static void authenticate(String subject) {
+		Jwt jwt = Jwt.withTokenValue("test-token")
+				.header("alg", "none")
+				.subject(subject)
+				.claim("email", subject + "@example.com")
+				.claim("name", subject)
+				.build();
+		SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+	}
+
+	/** The same user as {@link #authenticate}, for a MockMvc request. */
+	public static RequestPostProcessor jwtUser(String subject) {
+		return SecurityMockMvcRequestPostProcessors.jwt().jwt(jwt -> jwt
+				.subject(subject)
+				.claim("email", subject + "@example.com")
+				.claim("name", subject));
+	}
+
+	/**
+	 * Deletes the groups as their creator, then signs out. For @AfterEach;
+	 * null entries (setup that never ran) are skipped.
+	 */
+	public static void deleteGroups(InventoryGroupService inventoryGroupService, String subject,
+			Collection<InventoryGroup> groups) {
+		authenticate(subject);
+		try {
+			for (InventoryGroup group : groups) {
+				if (group != null) {
+					inventoryGroupService.deleteGroup(group.getId(), group.getCreatedBy());
+				}
+			}
+		} finally {
+			SecurityContextHolder.clearContext();
+		}
+	}
+
+	/** Hibernate statistics, switched on and cleared. */
+	public static Statistics statistics(EntityManagerFactory entityManagerFactory) {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+		return statistics;
+	}
+
+	/**
+	 * Runs op(0) .. op(rounds - 1) on the calling thread and returns the
+	 * latency percentiles and the heap allocated per call.
+	 */
+	public static Latency measure(int rounds, IntConsumer op) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long thread = Thread.currentThread().threadId();
+		long[] micros = new long[rounds];
+		long allocated = threads.getThreadAllocatedBytes(thread);
+		for (int i = 0; i < rounds; i++) {
+			long start = System.nanoTime();
+			op.accept(i);
+			micros[i] = (System.nanoTime() - start) / 1000;
+		}
+		allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+		Arrays.sort(micros);
+		return new Latency(micros, allocated / rounds);
+	}
+
+	/** Sorted per-call timings in microseconds. */
+	public static final class Latency {
+
+		private final long[] micros;
+		private final long allocatedBytesPerCall;
+
+		private Latency(long[] micros, long allocatedBytesPerCall) {
+			this.micros = micros;
+			this.allocatedBytesPerCall = allocatedBytesPerCall;
+		}
+
+		public long p50() {
+			return percentile(50);
+		}
+
+		public long p95() {
+			return percentile(95);
+		}
+
+		public long p99() {
+			return percentile(99);
+		}
+
+		public long allocatedBytesPerCall() {
+			return allocatedBytesPerCall;
+		}
+
+		private long percentile(int p) {
+			return micros[Math.min(micros.length - 1, micros.length * p / 100)];
+		}
+
+		@Override
+		public String toString() {
+			return "p50=%dus p95=%dus p99=%dus".formatted(p50(), p95(), p99());
+		}
+	}
+}
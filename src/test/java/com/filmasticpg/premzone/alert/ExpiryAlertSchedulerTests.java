@@ -0,0 +1,147 @@
+package com.filmasticpg.premzone.alert;
+
+import com.filmasticpg.premzone.group.InventoryGroup;
+import com.filmasticpg.premzone.item.FoodItem;
+import com.filmasticpg.premzone.item.InventoryItemRepository;
+import com.filmasticpg.premzone.item.ItemContextRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExpiryAlertSchedulerTests {
+
+	private static final int SOON_DAYS = 3;
+	private static final int HORIZON_DAYS = 5;
+	private static final LocalDate START = LocalDate.of(2025, 3, 1);
+
+	private final List<ItemContextRow> rows = new ArrayList<>();
+	private final InMemoryExpiryAlertSink sink = new InMemoryExpiryAlertSink();
+	private final MutableClock clock = new MutableClock();
+	private ExpiryAlertScheduler scheduler;
+
+	@BeforeEach
+	void setUp() {
+		InventoryItemRepository repository = mock(InventoryItemRepository.class);
+		// Behaves like the real range query over whatever is in rows
+		when(repository.findAllExpiringBetween(any(), any())).thenAnswer(invocation -> {
+			LocalDate from = invocation.getArgument(0);
+			LocalDate to = invocation.getArgument(1);
+			return rows.stream()
+					.filter(r -> !r.expiryDate().isBefore(from) && !r.expiryDate().isAfter(to))
+					.toList();
+		});
+		scheduler = new ExpiryAlertScheduler(repository, sink, SOON_DAYS, HORIZON_DAYS, clock);
+	}
+
+	@Test
+	void firesExpiringSoonAndExpiredOnTheRightDays() {
+		addRow(1L, START.plusDays(3));
+		scheduler.start();
+		assertThat(sink.getAlerts()).extracting(ExpiryAlert::kind).containsExactly(ExpiryAlert.Kind.EXPIRING_SOON);
+
+		advanceDays(3);
+		assertThat(sink.getAlerts()).hasSize(1);
+
+		advanceDays(1);
+		assertThat(sink.getAlerts()).extracting(ExpiryAlert::kind)
+				.containsExactly(ExpiryAlert.Kind.EXPIRING_SOON, ExpiryAlert.Kind.EXPIRED);
+		assertThat(scheduler.trackedCount()).isZero();
+	}
+
+	@Test
+	void picksUpItemsAsTheyEnterTheHorizonWithoutRescanning() {
+		addRow(2L, START.plusDays(20));
+		scheduler.start();
+		assertThat(scheduler.trackedCount()).isZero();
+
+		// Its expiring-soon day (day 17) enters the wheel on day 12
+		advanceDays(12);
+		assertThat(scheduler.trackedCount()).isEqualTo(1);
+		assertThat(sink.getAlerts()).isEmpty();
+
+		advanceDays(5);
+		assertThat(sink.getAlerts()).singleElement().satisfies(alert -> {
+			assertThat(alert.kind()).isEqualTo(ExpiryAlert.Kind.EXPIRING_SOON);
+			assertThat(alert.itemId()).isEqualTo(2L);
+		});
+	}
+
+	@Test
+	void followsItemChanges() {
+		addRow(3L, START.plusDays(4));
+		scheduler.start();
+
+		// Removed before its expiring-soon day
+		scheduler.itemRemoved(3L);
+		// Added after startup, expiring in two days
+		scheduler.itemSaved(food(4L, START.plusDays(5)));
+
+		advanceDays(2);
+		assertThat(sink.getAlerts()).singleElement().satisfies(alert -> {
+			assertThat(alert.kind()).isEqualTo(ExpiryAlert.Kind.EXPIRING_SOON);
+			assertThat(alert.itemId()).isEqualTo(4L);
+		});
+
+		// Expiry pushed out beyond the horizon: nothing pending any more
+		scheduler.itemSaved(food(4L, START.plusDays(60)));
+		assertThat(scheduler.trackedCount()).isZero();
+	}
+
+	private void advanceDays(int days) {
+		for (int i = 0; i < days; i++) {
+			clock.advanceOneDay();
+			scheduler.tick();
+		}
+	}
+
+	private void addRow(Long id, LocalDate expiryDate) {
+		rows.add(new ItemContextRow(id, 1L, "Item " + id, 1, "Food", expiryDate));
+	}
+
+	private static FoodItem food(Long id, LocalDate expiryDate) {
+		InventoryGroup group = new InventoryGroup();
+		group.setId(1L);
+		FoodItem item = new FoodItem();
+		item.setId(id);
+		item.setName("Item " + id);
+		item.setInventoryGroup(group);
+		item.setExpiryDate(expiryDate);
+		return item;
+	}
+
+	private static class MutableClock extends Clock {
+
+		private Instant now = START.atStartOfDay(ZoneOffset.UTC).toInstant();
+
+		void advanceOneDay() {
+			now = now.plusSeconds(24 * 60 * 60);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package com.filmasticpg.premzone.chat;
+
+import com.filmasticpg.premzone.TestSupport;
+import com.filmasticpg.premzone.group.InventoryGroup;
+import com.filmasticpg.premzone.group.InventoryGroupService;
+import com.filmasticpg.premzone.item.FoodItem;
+import com.filmasticpg.premzone.item.InventoryItem;
+import com.filmasticpg.premzone.item.InventoryItemService;
+import com.filmasticpg.premzone.item.ItemSort;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Inventory CRUD must stay responsive while chats are waiting on a slow model.
+ * The pool is deliberately smaller than the number of in-flight chats, so if a
+ * chat request held a connection during the model call (a transaction around
+ * it, or a request-scoped EntityManager from open-in-view) the inventory
+ * operations below would block until the chats finished. The chats go through
+ * MockMvc so the whole request path is covered.
+ */
+@SpringBootTest(properties = "spring.datasource.hikari.maximum-pool-size=4")
+@AutoConfigureMockMvc
+class AIServiceConcurrencyTests {
+
+	private static final String USER = "concurrency-test-user";
+
+	private static final long MODEL_DELAY_MS = 3000;
+	private static final int CONCURRENT_CHATS = 8;
+	private static final int CRUD_ROUNDS = 10;
+
+	@TestConfiguration
+	static class SlowChatClientConfig {
+
+		@Bean
+		ChatClient.Builder chatClientBuilder() {
+			ChatClient chatClient = mock(ChatClient.class, Answers.RETURNS_DEEP_STUBS);
+			when(chatClient.prompt(any(Prompt.class)).call().chatResponse()).thenAnswer(invocation -> {
+				Thread.sleep(MODEL_DELAY_MS);
+				return new ChatResponse(List.of(new Generation(new AssistantMessage("Bet."))));
+			});
+			ChatClient.Builder builder = mock(ChatClient.Builder.class);
+			when(builder.build()).thenReturn(chatClient);
+			return builder;
+		}
+	}
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private AIService aiService;
+
+	@Autowired
+	private InventoryGroupService inventoryGroupService;
+
+	@Autowired
+	private InventoryItemService inventoryItemService;
+
+	private InventoryGroup group;
+	private final List<Long> sessionIds = new ArrayList<>();
+
+	@AfterEach
+	void cleanUp() {
+		TestSupport.authenticate(USER);
+		sessionIds.forEach(aiService::deleteSession);
+		if (group != null) {
+			inventoryGroupService.deleteGroup(group.getId(), group.getCreatedBy());
+		}
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void inventoryLatencyStaysFlatWhileChatsAreInFlight() throws Exception {
+		TestSupport.authenticate(USER);
+		group = inventoryGroupService.createGroup("Concurrency Test");
+		for (int i = 0; i < CONCURRENT_CHATS; i++) {
+			sessionIds.add(aiService.startNewSession("Chat " + i).getId());
+		}
+
+		long baseline = maxCrudLatencyMs();
+
+		ExecutorService chats = Executors.newFixedThreadPool(CONCURRENT_CHATS);
+		List<Future<String>> replies = new ArrayList<>();
+		for (Long sessionId : sessionIds) {
+			replies.add(chats.submit(() -> mockMvc.perform(post("/api/v1/chat/{id}/send", sessionId)
+					.with(TestSupport.jwtUser(USER))
+					.contentType(MediaType.APPLICATION_JSON)
+					.content("{\"message\": \"what can I cook?\"}"))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.messageId").isNumber())
+					.andReturn().getResponse().getContentAsString()));
+		}
+
+		// Give every chat time to get past phase 1 and start waiting on the model
+		Thread.sleep(500);
+		long underLoad = maxCrudLatencyMs();
+
+		for (Future<String> reply : replies) {
+			assertThat(JsonPath.<String>read(reply.get(MODEL_DELAY_MS * 4, TimeUnit.MILLISECONDS), "$.content"))
+					.isEqualTo("Bet.");
+		}
+		chats.shutdown();
+
+		assertThat(underLoad).isLessThan(MODEL_DELAY_MS / 3);
+		assertThat(underLoad).isLessThan(Math.max(baseline * 10, 200));
+	}
+
+	private long maxCrudLatencyMs() {
+		long max = 0;
+		for (int i = 0; i < CRUD_ROUNDS; i++) {
+			long start = System.nanoTime();
+
+			FoodItem item = new FoodItem();
+			item.setName("Milk " + i);
+			item.setQuantity(2);
+			InventoryItem saved = inventoryItemService.addItem(group.getId(), item, "Dairy");
+			inventoryItemService.reduceItemQuantity(saved.getId(), 1);
+			inventoryItemService.getItemsByGroup(group.getId(), ItemSort.NAME, false, null, 50);
+			inventoryItemService.deleteItem(saved.getId());
+
+			max = Math.max(max, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		}
+		return max;
+	}
+}
@@ -0,0 +1,112 @@
+package com.filmasticpg.premzone.chat;
+
+import com.filmasticpg.premzone.TestSupport;
+import com.filmasticpg.premzone.chat.model.ChatMessage;
+import com.filmasticpg.premzone.chat.model.ChatSession;
+import com.filmasticpg.premzone.chat.model.MessageRole;
+import com.filmasticpg.premzone.chat.repo.ChatMessageRepository;
+import com.filmasticpg.premzone.group.InventoryGroup;
+import com.filmasticpg.premzone.group.InventoryGroupService;
+import com.filmasticpg.premzone.item.InventoryItemService;
+import com.filmasticpg.premzone.item.ItemSort;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Executing a message's proposal is idempotent and only allowed for the
+ * owner of the message's session.
+ */
+@SpringBootTest
+class AIServiceProposalTests {
+
+	private static final String OWNER = "proposal-test-user";
+
+	@Autowired
+	private AIService aiService;
+
+	@Autowired
+	private ChatMessageRepository chatMessageRepository;
+
+	@Autowired
+	private InventoryGroupService inventoryGroupService;
+
+	@Autowired
+	private InventoryItemService inventoryItemService;
+
+	private InventoryGroup group;
+	private ChatSession session;
+
+	@BeforeEach
+	void setUp() {
+		TestSupport.authenticate(OWNER);
+		group = inventoryGroupService.createGroup("Proposal Test");
+		session = aiService.startNewSession("Proposal Test");
+	}
+
+	@AfterEach
+	void cleanUp() {
+		TestSupport.authenticate(OWNER);
+		aiService.deleteSession(session.getId());
+		inventoryGroupService.deleteGroup(group.getId(), group.getCreatedBy());
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void secondExecutionAppliesNothingAndReturnsFirstResults() {
+		String proposal = proposal();
+		Long messageId = saveProposalMessage(proposal);
+
+		ProposalExecution first = aiService.executeProposal(proposal, messageId);
+		ProposalExecution second = aiService.executeProposal(proposal, messageId);
+
+		assertThat(first.alreadyExecuted()).isFalse();
+		assertThat(first.items()).singleElement().satisfies(r -> assertThat(r.error()).isNull());
+		assertThat(second.alreadyExecuted()).isTrue();
+		assertThat(second.items()).isEqualTo(first.items());
+		assertThat(inventoryItemService.getItemsByGroup(group.getId(), ItemSort.NAME, false, null, 50).items())
+				.hasSize(1);
+	}
+
+	@Test
+	void otherUsersCannotExecuteOrReadTheProposal() {
+		String proposal = proposal();
+		Long messageId = saveProposalMessage(proposal);
+
+		TestSupport.authenticate("proposal-test-intruder");
+		assertThatThrownBy(() -> aiService.executeProposal(proposal, messageId))
+				.hasMessageContaining("Unauthorized");
+
+		TestSupport.authenticate(OWNER);
+		assertThat(chatMessageRepository.findById(messageId).orElseThrow().getExecutedAt()).isNull();
+		assertThat(inventoryItemService.getItemsByGroup(group.getId(), ItemSort.NAME, false, null, 50).items())
+				.isEmpty();
+	}
+
+	@Test
+	void executionWithoutAMessageIdIsRejected() {
+		String proposal = proposal();
+
+		assertThatThrownBy(() -> aiService.executeProposal(proposal, null))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("messageId");
+		assertThat(inventoryItemService.getItemsByGroup(group.getId(), ItemSort.NAME, false, null, 50).items())
+				.isEmpty();
+	}
+
+	private String proposal() {
+		return """
+				{"action": "ADD_ITEMS", "items": [{"name": "Rice", "type": "Pantry", "quantity": 2, "groupId": %d}]}
+				""".formatted(group.getId());
+	}
+
+	private Long saveProposalMessage(String proposal) {
+		return chatMessageRepository.save(new ChatMessage(session, proposal, MessageRole.ASSISTANT)).getId();
+	}
+}
@@ -0,0 +1,111 @@
+package com.filmasticpg.premzone.chat;
+
+import com.filmasticpg.premzone.TestSupport;
+import com.filmasticpg.premzone.chat.model.ChatMessage;
+import com.filmasticpg.premzone.chat.model.MessageRole;
+import com.filmasticpg.premzone.chat.repo.ChatMessageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.core.context.SecurityContextHolder;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The streamed reply is saved exactly once: in full, followed by its id, when
+ * the model finishes, or as far as it got when the client goes away.
+ */
+@SpringBootTest
+class AIServiceStreamTests {
+
+	private static final String USER = "stream-test-user";
+
+	// What the stubbed model streams for the next request
+	private static Flux<String> tokens = Flux.empty();
+
+	@TestConfiguration
+	static class StreamingChatClientConfig {
+
+		@Bean
+		ChatClient.Builder chatClientBuilder() {
+			ChatClient chatClient = mock(ChatClient.class, Answers.RETURNS_DEEP_STUBS);
+			when(chatClient.prompt(any(Prompt.class)).stream().content()).thenAnswer(invocation -> tokens);
+			ChatClient.Builder builder = mock(ChatClient.Builder.class, Answers.RETURNS_DEEP_STUBS);
+			when(builder.build()).thenReturn(chatClient);
+			return builder;
+		}
+	}
+
+	@Autowired
+	private AIService aiService;
+
+	@Autowired
+	private ChatMessageRepository chatMessageRepository;
+
+	private Long sessionId;
+
+	@BeforeEach
+	void setUp() {
+		TestSupport.authenticate(USER);
+		sessionId = aiService.startNewSession("Stream Test").getId();
+		// A cached reply would be replayed whole instead of streamed
+		aiService.setResponseCacheEnabled(sessionId, false);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		TestSupport.authenticate(USER);
+		aiService.deleteSession(sessionId);
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void cancelledStreamSavesThePartialReply() {
+		// Two tokens, then the model keeps the stream open
+		tokens = Flux.just("Hello", " there").concatWith(Flux.never());
+		List<ChatReply> received = new ArrayList<>();
+
+		Disposable subscription = aiService.streamResponse(sessionId, "hi", null).subscribe(received::add);
+		assertThat(received).extracting(ChatReply::content).containsExactly("Hello", " there");
+		subscription.dispose();
+
+		ChatMessage saved = latestMessage();
+		assertThat(saved.getRole()).isEqualTo(MessageRole.ASSISTANT);
+		assertThat(saved.getContent()).isEqualTo("Hello there [Response interrupted]");
+		assertThat(chatMessageRepository.countBySessionId(sessionId)).isEqualTo(2);
+	}
+
+	@Test
+	void completedStreamEndsWithTheSavedMessageId() {
+		tokens = Flux.just("Hello", " there");
+
+		List<ChatReply> received = aiService.streamResponse(sessionId, "hi", null).collectList().block();
+
+		assertThat(received).hasSize(3);
+		ChatReply last = received.get(2);
+		assertThat(last.content()).isNull();
+		assertThat(last.messageId()).isEqualTo(latestMessage().getId());
+		assertThat(latestMessage().getContent()).isEqualTo("Hello there");
+		assertThat(chatMessageRepository.countBySessionId(sessionId)).isEqualTo(2);
+	}
+
+	private ChatMessage latestMessage() {
+		return chatMessageRepository.findBySessionIdOrderByIdDesc(sessionId, Limit.of(1)).get(0);
+	}
+}
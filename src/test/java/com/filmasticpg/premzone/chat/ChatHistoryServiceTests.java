@@ -0,0 +1,88 @@
+package com.filmasticpg.premzone.chat;
+
+import com.filmasticpg.premzone.chat.model.ChatMessage;
+import com.filmasticpg.premzone.chat.model.ChatSession;
+import com.filmasticpg.premzone.chat.model.MessageRole;
+import com.filmasticpg.premzone.chat.repo.ChatMessageRepository;
+import com.filmasticpg.premzone.chat.repo.ChatSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChatHistoryServiceTests {
+
+	private static final Long SESSION = 1L;
+	private static final int MAX_MESSAGES = 2;
+	private static final int TOKEN_BUDGET = 100;
+
+	private final ChatMessageRepository chatMessageRepository = mock(ChatMessageRepository.class);
+	private final ChatHistoryService history = new ChatHistoryService(mock(ChatClient.Builder.class),
+			chatMessageRepository, mock(ChatSessionRepository.class), mock(PlatformTransactionManager.class),
+			Runnable::run, MAX_MESSAGES, TOKEN_BUDGET, 4);
+
+	private final ChatSession session = new ChatSession();
+
+	@BeforeEach
+	void setUp() {
+		session.setId(SESSION);
+	}
+
+	@Test
+	void latestMessageOverTheBudgetIsKeptAndCutDown() {
+		String longReply = "a".repeat(TOKEN_BUDGET * 8) + "the end";
+		latest(message(3L, longReply), message(2L, "hi"));
+
+		List<Message> built = history.buildHistory(session, null);
+
+		assertThat(built).singleElement().satisfies(m -> {
+			assertThat(m.getContent()).startsWith("[truncated] ").endsWith("the end");
+			assertThat(PromptAssembler.estimateTokens(m.getContent())).isLessThanOrEqualTo(TOKEN_BUDGET + 3);
+		});
+	}
+
+	@Test
+	void messagesWaitingForTheSummaryShareTheBudget() {
+		latest(message(10L, 30), message(9L, 30), message(8L, 30));
+		when(chatMessageRepository.findBySessionIdAndIdBetweenOrderByIdDesc(eq(SESSION), anyLong(), eq(8L),
+				any(Limit.class))).thenReturn(List.of(message(8L, 30), message(7L, 30)));
+
+		List<Message> built = history.buildHistory(session, null);
+
+		// 10 and 9 fill the window by count, 8 fits the rest of the budget, 7 doesn't
+		assertThat(built).extracting(Message::getContent)
+				.containsExactly(content(8L, 30), content(9L, 30), content(10L, 30));
+	}
+
+	private void latest(ChatMessage... newestFirst) {
+		when(chatMessageRepository.findBySessionIdOrderByIdDesc(eq(SESSION), any(Limit.class)))
+				.thenReturn(List.of(newestFirst));
+	}
+
+	private ChatMessage message(Long id, int tokens) {
+		return message(id, content(id, tokens));
+	}
+
+	private ChatMessage message(Long id, String content) {
+		ChatMessage message = new ChatMessage(session, content,
+				id % 2 == 0 ? MessageRole.ASSISTANT : MessageRole.USER);
+		message.setId(id);
+		return message;
+	}
+
+	private static String content(Long id, int tokens) {
+		String prefix = id + ":";
+		return prefix + "x".repeat(tokens * 4 - prefix.length());
+	}
+}
@@ -0,0 +1,39 @@
+package com.filmasticpg.premzone.chat;
+
+import com.filmasticpg.premzone.group.InventoryGroupChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatResponseCacheTests {
+
+	private final ChatResponseCache cache = new ChatResponseCache(new NgramEmbedder(), new SimpleMeterRegistry(),
+			true, Duration.ofMinutes(30), 100, 1.0f);
+
+	@Test
+	void answersRepeatedQuestionOfTheSameUser() {
+		cache.put(1L, "v1", Set.of(10L), "What's expiring?", "Milk");
+
+		assertThat(cache.get(1L, "v1", "what's   EXPIRING")).contains("Milk");
+	}
+
+	@Test
+	void neverSharesRepliesBetweenUsersOfTheSameGroup() {
+		cache.put(1L, "v1", Set.of(10L), "What's expiring?", "Milk");
+
+		assertThat(cache.get(2L, "v1", "What's expiring?")).isEmpty();
+	}
+
+	@Test
+	void groupChangeDropsItsEntries() {
+		cache.put(1L, "v1", Set.of(10L), "What's expiring?", "Milk");
+
+		cache.onGroupChanged(new InventoryGroupChangedEvent(10L, 2));
+
+		assertThat(cache.get(1L, "v1", "What's expiring?")).isEmpty();
+	}
+}
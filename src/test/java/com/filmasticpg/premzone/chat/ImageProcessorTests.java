@@ -0,0 +1,99 @@
+package com.filmasticpg.premzone.chat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.MimeTypeUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImageProcessorTests {
+
+	private final ImageProcessor imageProcessor = new ImageProcessor(300, 1_000_000L, 0.85f);
+
+	@Test
+	void downscalesLongSideToMaxDimensionKeepingAspectRatio() throws IOException {
+		ProcessedImage processed = imageProcessor.process(new ByteArrayInputStream(png(1200, 600)));
+
+		assertThat(processed.width()).isEqualTo(300);
+		assertThat(processed.height()).isEqualTo(150);
+		assertThat(processed.mimeType()).isEqualTo(MimeTypeUtils.IMAGE_JPEG);
+		BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(processed.data()));
+		assertThat(decoded.getWidth()).isEqualTo(300);
+		assertThat(decoded.getHeight()).isEqualTo(150);
+	}
+
+	@Test
+	void keepsPortraitAspectRatio() throws IOException {
+		ProcessedImage processed = imageProcessor.process(new ByteArrayInputStream(png(500, 1000)));
+
+		assertThat(processed.width()).isEqualTo(150);
+		assertThat(processed.height()).isEqualTo(300);
+	}
+
+	@Test
+	void neverUpscalesSmallImages() throws IOException {
+		ProcessedImage processed = imageProcessor.process(new ByteArrayInputStream(png(200, 100)));
+
+		assertThat(processed.width()).isEqualTo(200);
+		assertThat(processed.height()).isEqualTo(100);
+	}
+
+	@Test
+	void acceptsBase64() throws IOException {
+		String base64 = Base64.getEncoder().encodeToString(png(600, 600));
+
+		ProcessedImage processed = imageProcessor.processBase64(base64);
+
+		assertThat(processed.width()).isEqualTo(300);
+		assertThat(processed.height()).isEqualTo(300);
+		assertThat(imageProcessor.processBase64(null)).isNull();
+		assertThat(imageProcessor.processBase64("")).isNull();
+	}
+
+	// Only the PNG signature and IHDR chunk, so decoding any pixels would
+	// fail: the size check has to come from the header alone
+	@Test
+	void rejectsImagesOverMaxPixelsFromTheHeader() throws IOException {
+		byte[] header = Arrays.copyOf(png(2000, 1000), 33);
+
+		assertThatThrownBy(() -> imageProcessor.process(new ByteArrayInputStream(header)))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("too large")
+				.hasMessageContaining("2000x1000");
+	}
+
+	@Test
+	void rejectsNonImageBytes() {
+		byte[] text = "definitely not an image".getBytes(StandardCharsets.UTF_8);
+
+		assertThatThrownBy(() -> imageProcessor.process(new ByteArrayInputStream(text)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> imageProcessor.process(new ByteArrayInputStream(new byte[0])))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void rejectsInvalidBase64() {
+		assertThatThrownBy(() -> imageProcessor.processBase64("***not base64***"))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> imageProcessor.processBase64(
+				Base64.getEncoder().encodeToString("plain text".getBytes(StandardCharsets.UTF_8))))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static byte[] png(int width, int height) throws IOException {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+}
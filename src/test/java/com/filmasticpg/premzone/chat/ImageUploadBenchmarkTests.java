@@ -0,0 +1,83 @@
+package com.filmasticpg.premzone.chat;
+
+import com.filmasticpg.premzone.TestSupport;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.io.ByteArrayResource;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Base64;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A 12 megapixel phone photo through the old JSON path (base64 decoded into
+ * a byte array and sent as is) against ImageProcessor fed from the base64
+ * string and from a stream, as the multipart endpoint does. Prints heap
+ * allocated, latency and the size of what goes to the model.
+ * Not part of the normal build:
+ *
+ * <pre>
+ * mvn test -Dtest=ImageUploadBenchmarkTests -Dpremzone.benchmark=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "premzone.benchmark", matches = "true")
+class ImageUploadBenchmarkTests {
+
+	private static final int WIDTH = 4000;
+	private static final int HEIGHT = 3000;
+	private static final int WARMUP = 5;
+	private static final int ROUNDS = 30;
+
+	private static byte[] jpeg;
+	private static String base64;
+
+	private final ImageProcessor imageProcessor = new ImageProcessor(1536, 50_000_000L, 0.85f);
+
+	@BeforeAll
+	static void createPhoto() throws Exception {
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setPaint(new GradientPaint(0, 0, Color.ORANGE, WIDTH, HEIGHT, Color.BLUE));
+		g.fillRect(0, 0, WIDTH, HEIGHT);
+		g.setColor(Color.WHITE);
+		for (int i = 0; i < 200; i++) {
+			g.drawString("Satchel " + i, (i * 97) % WIDTH, (i * 53) % HEIGHT);
+		}
+		g.dispose();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "jpeg", out);
+		jpeg = out.toByteArray();
+		base64 = Base64.getEncoder().encodeToString(jpeg);
+	}
+
+	@Test
+	void downscalingBoundsWhatReachesTheModel() {
+		System.out.printf("source %dx%d jpeg=%dKB base64=%dKB%n", WIDTH, HEIGHT, jpeg.length / 1024,
+				base64.length() / 1024);
+
+		report("base64 as is", () -> new ByteArrayResource(Base64.getDecoder().decode(base64)).contentLength());
+		report("base64 processed", () -> imageProcessor.processBase64(base64).data().length);
+		report("multipart stream", () -> imageProcessor.process(new ByteArrayInputStream(jpeg)).data().length);
+
+		ProcessedImage processed = imageProcessor.process(new ByteArrayInputStream(jpeg));
+		assertThat(Math.max(processed.width(), processed.height())).isEqualTo(1536);
+		assertThat(processed.data().length).isLessThan(jpeg.length);
+	}
+
+	private void report(String name, Supplier<Number> call) {
+		TestSupport.measure(WARMUP, i -> call.get());
+		long payload = call.get().longValue();
+		TestSupport.Latency latency = TestSupport.measure(ROUNDS, i -> call.get());
+		System.out.printf("%-17s allocated/call=%-6dKB payload=%-5dKB %s%n", name,
+				latency.allocatedBytesPerCall() / 1024, payload / 1024, latency);
+	}
+}
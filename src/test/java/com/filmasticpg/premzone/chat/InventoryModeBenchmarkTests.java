@@ -0,0 +1,205 @@
+package com.filmasticpg.premzone.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.filmasticpg.premzone.TestSupport;
+import com.filmasticpg.premzone.chat.AIService.InventoryMode;
+import com.filmasticpg.premzone.chat.repo.ChatMessageRepository;
+import com.filmasticpg.premzone.chat.repo.ChatSessionRepository;
+import com.filmasticpg.premzone.config.UserContext;
+import com.filmasticpg.premzone.group.GroupVersionService;
+import com.filmasticpg.premzone.group.InventoryGroup;
+import com.filmasticpg.premzone.group.InventoryGroupService;
+import com.filmasticpg.premzone.item.InventoryItemService;
+import com.filmasticpg.premzone.item.ItemOperation;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Answers;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.function.FunctionCallback;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The same chat turns against a large group with the inventory in the prompt
+ * (PROMPT) and looked up through tools (TOOLS). The model is stubbed; in
+ * TOOLS mode it asks for the first page of getItemsByGroup, as a model
+ * answering "what can I cook?" would. Prints PromptAssembler's tokens per
+ * section, the tool result tokens and the latency of a turn without the
+ * model. Not part of the normal build:
+ *
+ * <pre>
+ * mvn test -Dtest=InventoryModeBenchmarkTests -Dpremzone.benchmark=true
+ * </pre>
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "premzone.benchmark", matches = "true")
+class InventoryModeBenchmarkTests {
+
+	private static final String USER = "inventory-mode-benchmark-user";
+	private static final int ITEMS = 2000;
+	private static final int ROUNDS = 30;
+	private static final String QUESTION = "what can I cook tonight with chicken?";
+	private static final List<String> SECTIONS = List.of("static", "context", "history", "relevant", "message");
+
+	// The summary refresh also builds a client; it must not reach a provider
+	@TestConfiguration
+	static class StubChatClientConfig {
+
+		@Bean
+		ChatClient.Builder chatClientBuilder() {
+			return mock(ChatClient.Builder.class, Answers.RETURNS_DEEP_STUBS);
+		}
+	}
+
+	@Autowired
+	private ChatSessionRepository chatSessionRepository;
+
+	@Autowired
+	private ChatMessageRepository chatMessageRepository;
+
+	@Autowired
+	private ChatHistoryService chatHistoryService;
+
+	@Autowired
+	private ChatResponseCache chatResponseCache;
+
+	@Autowired
+	private InventoryContextService inventoryContextService;
+
+	@Autowired
+	private InventoryGroupService inventoryGroupService;
+
+	@Autowired
+	private GroupVersionService groupVersionService;
+
+	@Autowired
+	private InventoryTools inventoryTools;
+
+	@Autowired
+	private InventoryItemService inventoryItemService;
+
+	@Autowired
+	private UserContext userContext;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private AIService aiService;
+
+	private InventoryGroup group;
+	private final List<Long> sessionIds = new ArrayList<>();
+
+	@AfterEach
+	void cleanUp() {
+		TestSupport.authenticate(USER);
+		sessionIds.forEach(aiService::deleteSession);
+		TestSupport.deleteGroups(inventoryGroupService, USER, Collections.singletonList(group));
+	}
+
+	@Test
+	void toolsModeSendsLessInventoryUpFront() {
+		TestSupport.authenticate(USER);
+		group = inventoryGroupService.createGroup("Inventory Mode");
+		inventoryItemService.applyBatch(adds(group.getId()));
+
+		double prompt = report(InventoryMode.PROMPT);
+		double tools = report(InventoryMode.TOOLS);
+
+		assertThat(tools).isLessThan(prompt);
+	}
+
+	/** Prints and returns the mean inventory tokens per turn: context + relevant + tool results. */
+	private double report(InventoryMode mode) {
+		MeterRegistry registry = new SimpleMeterRegistry();
+		DistributionSummary toolTokens = DistributionSummary.builder("benchmark.tool.tokens").register(registry);
+		AIService service = service(mode, registry, toolTokens);
+
+		Long sessionId = aiService.startNewSession(mode.name()).getId();
+		sessionIds.add(sessionId);
+		aiService.setResponseCacheEnabled(sessionId, false);
+
+		TestSupport.Latency latency = TestSupport.measure(ROUNDS,
+				i -> service.generateResponse(sessionId, QUESTION, null));
+
+		StringBuilder line = new StringBuilder(String.format("%-6s", mode));
+		double total = 0;
+		for (String section : SECTIONS) {
+			double mean = registry.get("chat.prompt.section.tokens").tag("section", section).summary().mean();
+			line.append(String.format(" %s=%-5.0f", section, mean));
+			total += mean;
+		}
+		line.append(String.format(" tools=%-5.0f total=%-5.0f %s", toolTokens.mean(), total + toolTokens.mean(),
+				latency));
+		System.out.println(line);
+
+		return registry.get("chat.prompt.section.tokens").tag("section", "context").summary().mean()
+				+ registry.get("chat.prompt.section.tokens").tag("section", "relevant").summary().mean()
+				+ toolTokens.mean();
+	}
+
+	// Its own PromptAssembler and registry, so each mode's section tokens are measured apart
+	private AIService service(InventoryMode mode, MeterRegistry registry, DistributionSummary toolTokens) {
+		ChatClient chatClient = mock(ChatClient.class);
+		ChatClient.ChatClientRequestSpec spec = mock(ChatClient.ChatClientRequestSpec.class, Answers.RETURNS_SELF);
+		ChatClient.CallResponseSpec call = mock(ChatClient.CallResponseSpec.class);
+		when(chatClient.prompt(any(Prompt.class))).thenReturn(spec);
+		when(spec.call()).thenReturn(call);
+		when(call.chatResponse()).thenAnswer(invocation -> {
+			if (mode == InventoryMode.TOOLS) {
+				toolTokens.record(PromptAssembler.estimateTokens(itemsByGroup()));
+			}
+			return new ChatResponse(List.of(new Generation(new AssistantMessage("Chicken stir fry."))));
+		});
+		ChatClient.Builder builder = mock(ChatClient.Builder.class);
+		when(builder.build()).thenReturn(chatClient);
+
+		return new AIService(builder, chatSessionRepository, chatMessageRepository, chatHistoryService,
+				new PromptAssembler(registry), chatResponseCache, inventoryContextService, inventoryGroupService,
+				groupVersionService, inventoryTools, inventoryItemService, userContext, objectMapper,
+				transactionManager, registry, mode);
+	}
+
+	private String itemsByGroup() {
+		FunctionCallback getItemsByGroup = inventoryTools.forGroups(Set.of(group.getId())).stream()
+				.filter(tool -> tool.getName().equals("getItemsByGroup"))
+				.findFirst().orElseThrow();
+		return getItemsByGroup.call("{\"groupId\": " + group.getId() + "}");
+	}
+
+	private static List<ItemOperation> adds(Long groupId) {
+		String[] names = { "Chicken Breast", "Rice", "Tomatoes", "Oat Milk", "Batteries", "Dish Soap", "Pasta",
+				"Onions" };
+		List<ItemOperation> ops = new ArrayList<>(ITEMS);
+		for (int i = 0; i < ITEMS; i++) {
+			ops.add(new ItemOperation(ItemOperation.Type.ADD, null, groupId, "Food", names[i % names.length] + " " + i,
+					"Food", 1 + i % 5, LocalDate.now().plusDays(i % 90), null, null));
+		}
+		return ops;
+	}
+}
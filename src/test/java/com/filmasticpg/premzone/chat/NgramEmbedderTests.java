@@ -0,0 +1,50 @@
+package com.filmasticpg.premzone.chat;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class NgramEmbedderTests {
+
+	private final NgramEmbedder embedder = new NgramEmbedder();
+
+	@Test
+	void sameTextGivesSameVector() {
+		float[] first = embedder.embed("Cherry Tomatoes");
+
+		assertThat(new NgramEmbedder().embed("Cherry Tomatoes")).containsExactly(first);
+		assertThat(embedder.embed("cherry   TOMATOES!")).containsExactly(first);
+	}
+
+	@Test
+	void vectorsAreNormalised() {
+		float[] vector = embedder.embed("Oat Milk 1L");
+
+		assertThat(vector).hasSize(NgramEmbedder.DIMENSIONS);
+		assertThat(NgramEmbedder.similarity(vector, vector)).isCloseTo(1f, within(1e-5f));
+		assertThat(embedder.embed("   ")).containsOnly(0f);
+		assertThat(embedder.embed(null)).containsOnly(0f);
+	}
+
+	@Test
+	void nearDuplicatesRankAboveUnrelatedNames() {
+		assertThat(rank("tomatoes", "Batteries", "Paper towels", "Cherry Tomatoes", "Ibuprofen", "Tomato"))
+				.startsWith("Cherry Tomatoes", "Tomato");
+		assertThat(rank("chiken breast", "Dish soap", "AA batteries", "Chicken Breast", "Bread"))
+				.startsWith("Chicken Breast");
+		assertThat(rank("oat milk", "Motor oil", "Tomato paste", "Whole milk", "Oat Milk 1L"))
+				.startsWith("Oat Milk 1L", "Whole milk");
+	}
+
+	private List<String> rank(String query, String... names) {
+		float[] queryVector = embedder.embed(query);
+		return List.of(names).stream()
+				.sorted(Comparator.comparingDouble(
+						(String name) -> NgramEmbedder.similarity(queryVector, embedder.embed(name))).reversed())
+				.toList();
+	}
+}
@@ -0,0 +1,139 @@
+package com.filmasticpg.premzone.group;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.filmasticpg.premzone.TestSupport;
+import com.filmasticpg.premzone.item.InventoryItemController;
+import com.filmasticpg.premzone.item.InventoryItemService;
+import com.filmasticpg.premzone.item.ItemOperation;
+import com.filmasticpg.premzone.item.ItemSort;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * An idle dashboard polling the group and item listings, with and without
+ * If-None-Match. Prints statements and bytes per poll. Not part of the normal
+ * build:
+ *
+ * <pre>
+ * mvn test -Dtest=ConditionalGetBenchmarkTests -Dpremzone.benchmark=true
+ * </pre>
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "premzone.benchmark", matches = "true")
+class ConditionalGetBenchmarkTests {
+
+	private static final String USER = "etag-benchmark-user";
+	private static final int GROUPS = 5;
+	private static final int ITEMS = 200;
+	private static final int ROUNDS = 200;
+
+	@Autowired
+	private InventoryGroupController inventoryGroupController;
+
+	@Autowired
+	private InventoryItemController inventoryItemController;
+
+	@Autowired
+	private InventoryGroupService inventoryGroupService;
+
+	@Autowired
+	private InventoryItemService inventoryItemService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private final List<InventoryGroup> groups = new ArrayList<>();
+
+	@AfterEach
+	void cleanUp() {
+		TestSupport.deleteGroups(inventoryGroupService, USER, groups);
+	}
+
+	@Test
+	void unchangedPollsSkipTheListingQueries() {
+		TestSupport.authenticate(USER);
+		for (int g = 0; g < GROUPS; g++) {
+			groups.add(inventoryGroupService.createGroup("ETag " + g));
+		}
+		Long groupId = groups.get(0).getId();
+		inventoryItemService.applyBatch(adds(groupId));
+
+		compare("GET /groups", inventoryGroupController::getAllGroups);
+		compare("GET /items/group/{id}", request -> inventoryItemController.getItemsByGroup(groupId, ItemSort.NAME,
+				"asc", null, 50, request));
+	}
+
+	private void compare(String name, Function<WebRequest, ResponseEntity<?>> endpoint) {
+		String etag = poll(endpoint, null).getHeaders().getETag();
+		assertThat(etag).isNotNull();
+
+		long[] full = report(name + " full", endpoint, null);
+		long[] conditional = report(name + " 304", endpoint, etag);
+
+		assertThat(conditional[1]).isZero();
+		assertThat(conditional[0]).isLessThan(full[0]);
+	}
+
+	/** Prints and returns statements and bytes per poll. */
+	private long[] report(String name, Function<WebRequest, ResponseEntity<?>> endpoint, String ifNoneMatch) {
+		Statistics statistics = TestSupport.statistics(entityManagerFactory);
+		long[] bytes = new long[1];
+		TestSupport.Latency latency = TestSupport.measure(ROUNDS, i -> {
+			ResponseEntity<?> response = poll(endpoint, ifNoneMatch);
+			bytes[0] += body(response);
+		});
+		long[] perPoll = { statistics.getPrepareStatementCount() / ROUNDS, bytes[0] / ROUNDS };
+		System.out.printf("%-28s statements/poll=%-3d bytes/poll=%-6d %s%n", name, perPoll[0], perPoll[1], latency);
+		return perPoll;
+	}
+
+	private ResponseEntity<?> poll(Function<WebRequest, ResponseEntity<?>> endpoint, String ifNoneMatch) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		if (ifNoneMatch != null) {
+			request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+		}
+		return endpoint.apply(new ServletWebRequest(request, new MockHttpServletResponse()));
+	}
+
+	// null is what the controllers return once checkNotModified has written the 304
+	private int body(ResponseEntity<?> response) {
+		if (response == null || response.getBody() == null) {
+			return 0;
+		}
+		try {
+			return objectMapper.writeValueAsBytes(response.getBody()).length;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static List<ItemOperation> adds(Long groupId) {
+		List<ItemOperation> ops = new ArrayList<>(ITEMS);
+		for (int i = 0; i < ITEMS; i++) {
+			ops.add(new ItemOperation(ItemOperation.Type.ADD, null, groupId, "Food", "Item " + i, "Food", 1,
+					LocalDate.now().plusDays(i % 30), null, null));
+		}
+		return ops;
+	}
+}
@@ -0,0 +1,111 @@
+package com.filmasticpg.premzone.group;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.filmasticpg.premzone.TestSupport;
+import com.filmasticpg.premzone.item.InventoryItemService;
+import com.filmasticpg.premzone.item.ItemOperation;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dashboard listing for a user in hundreds of groups: the full group
+ * entities serialized (what GET /groups does, members and creator included)
+ * against the one-query summary. Prints statements and latency per call.
+ * Not part of the normal build:
+ *
+ * <pre>
+ * mvn test -Dtest=GroupSummaryBenchmarkTests -Dpremzone.benchmark=true
+ * </pre>
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "premzone.benchmark", matches = "true")
+class GroupSummaryBenchmarkTests {
+
+	private static final String USER = "summary-benchmark-user";
+	private static final int[] GROUP_COUNTS = { 100, 300, 500 };
+	private static final int ITEMS_PER_GROUP = 5;
+	private static final int ROUNDS = 50;
+
+	@Autowired
+	private InventoryGroupService inventoryGroupService;
+
+	@Autowired
+	private InventoryItemService inventoryItemService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private final List<InventoryGroup> groups = new ArrayList<>();
+
+	@AfterEach
+	void cleanUp() {
+		TestSupport.deleteGroups(inventoryGroupService, USER, groups);
+	}
+
+	@Test
+	void summaryStaysOneQueryAsGroupsGrow() {
+		TestSupport.authenticate(USER);
+		Statistics statistics = TestSupport.statistics(entityManagerFactory);
+
+		for (int count : GROUP_COUNTS) {
+			while (groups.size() < count) {
+				InventoryGroup group = inventoryGroupService.createGroup("Summary " + groups.size());
+				groups.add(group);
+				inventoryItemService.applyBatch(adds(group.getId()));
+			}
+
+			assertThat(inventoryGroupService.getGroupSummaries(7)).hasSize(count);
+			long full = report(count, "full groups", statistics,
+					() -> serialize(inventoryGroupService.getAllGroups()));
+			long summary = report(count, "summary", statistics,
+					() -> serialize(inventoryGroupService.getGroupSummaries(7)));
+
+			// The current user's row and the summary query; group IDs come from the membership cache
+			assertThat(summary).isLessThanOrEqualTo(2);
+			// Members come with the groups in one query (open-in-view is off, so
+			// nothing may load lazily); what grows is the width of the rows
+			assertThat(full).isLessThanOrEqualTo(3);
+		}
+	}
+
+	/** Prints and returns the statements per call. */
+	private long report(int count, String name, Statistics statistics, Supplier<?> call) {
+		statistics.clear();
+		TestSupport.Latency latency = TestSupport.measure(ROUNDS, i -> call.get());
+		long statements = statistics.getPrepareStatementCount() / ROUNDS;
+		System.out.printf("groups=%-4d %-12s statements/call=%-5d %s%n", count, name, statements, latency);
+		return statements;
+	}
+
+	private String serialize(Object value) {
+		try {
+			return objectMapper.writeValueAsString(value);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static List<ItemOperation> adds(Long groupId) {
+		List<ItemOperation> ops = new ArrayList<>(ITEMS_PER_GROUP);
+		for (int i = 0; i < ITEMS_PER_GROUP; i++) {
+			ops.add(new ItemOperation(ItemOperation.Type.ADD, null, groupId, "Food", "Item " + i, "Food", 1,
+					LocalDate.now().plusDays(i * 3L), null, null));
+		}
+		return ops;
+	}
+}
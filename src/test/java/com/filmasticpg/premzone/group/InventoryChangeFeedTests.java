@@ -0,0 +1,84 @@
+package com.filmasticpg.premzone.group;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class InventoryChangeFeedTests {
+
+	private static final int BUFFER_SIZE = 4;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private InventoryChangeFeed feed;
+
+	@BeforeEach
+	void setUp() {
+		GroupVersionService versions = new GroupVersionService(mock(InventoryGroupRepository.class), event -> {
+		});
+		feed = new InventoryChangeFeed(versions, meterRegistry, BUFFER_SIZE, Duration.ofMinutes(1));
+	}
+
+	@Test
+	void deliversToEverySubscriberOfTheGroupOnly() {
+		List<ItemChangeEvent> first = new ArrayList<>();
+		List<ItemChangeEvent> second = new ArrayList<>();
+		List<ItemChangeEvent> otherGroup = new ArrayList<>();
+		Disposable a = feed.subscribe(1L).subscribe(first::add);
+		Disposable b = feed.subscribe(1L).subscribe(second::add);
+		Disposable c = feed.subscribe(2L).subscribe(otherGroup::add);
+
+		feed.publish(event(1L, 10L));
+
+		assertThat(first).extracting(ItemChangeEvent::itemId).containsExactly(10L);
+		assertThat(second).extracting(ItemChangeEvent::itemId).containsExactly(10L);
+		assertThat(otherGroup).isEmpty();
+
+		a.dispose();
+		b.dispose();
+		c.dispose();
+		assertThat(feed.subscriberCount()).isZero();
+	}
+
+	@Test
+	void disconnectsSubscriberThatStopsReading() {
+		AtomicBoolean completed = new AtomicBoolean();
+		List<ItemChangeEvent> fast = new ArrayList<>();
+		feed.subscribe(1L).subscribe(new BaseSubscriber<>() {
+			@Override
+			protected void hookOnSubscribe(Subscription subscription) {
+				// never requests anything
+			}
+
+			@Override
+			protected void hookOnComplete() {
+				completed.set(true);
+			}
+		});
+		Disposable other = feed.subscribe(1L).subscribe(fast::add);
+
+		for (long i = 0; i <= BUFFER_SIZE; i++) {
+			feed.publish(event(1L, i));
+		}
+
+		assertThat(completed).isTrue();
+		assertThat(fast).hasSize(BUFFER_SIZE + 1);
+		assertThat(feed.subscriberCount()).isEqualTo(1);
+		assertThat(meterRegistry.counter("inventory.feed.disconnects", "reason", "slow").count()).isEqualTo(1.0);
+		other.dispose();
+	}
+
+	private static ItemChangeEvent event(Long groupId, Long itemId) {
+		return new ItemChangeEvent(ItemChangeEvent.Type.ADDED, groupId, itemId, "Item " + itemId, 1, null, 0);
+	}
+}
@@ -0,0 +1,84 @@
+package com.filmasticpg.premzone.item;
+
+import com.filmasticpg.premzone.TestSupport;
+import com.filmasticpg.premzone.group.InventoryGroup;
+import com.filmasticpg.premzone.group.InventoryGroupService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latency of the expiring-soon / expired queries as a group grows from 1k to
+ * 100k items. With the expiry index the numbers should stay roughly flat.
+ * Not part of the normal build:
+ *
+ * <pre>
+ * mvn test -Dtest=ExpiryQueryBenchmarkTests -Dpremzone.benchmark=true
+ * </pre>
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "premzone.benchmark", matches = "true")
+class ExpiryQueryBenchmarkTests {
+
+	private static final String USER = "expiry-benchmark-user";
+	private static final int[] SIZES = { 1_000, 10_000, 100_000 };
+	private static final int ROUNDS = 200;
+
+	@Autowired
+	private InventoryGroupService inventoryGroupService;
+
+	@Autowired
+	private InventoryItemService inventoryItemService;
+
+	private InventoryGroup group;
+
+	@AfterEach
+	void cleanUp() {
+		TestSupport.deleteGroups(inventoryGroupService, USER, Collections.singletonList(group));
+	}
+
+	@Test
+	void expiryQueriesStayFastAsInventoryGrows() {
+		TestSupport.authenticate(USER);
+		group = inventoryGroupService.createGroup("Expiry Benchmark");
+
+		int loaded = 0;
+		for (int size : SIZES) {
+			while (loaded < size) {
+				int chunk = Math.min(10_000, size - loaded);
+				inventoryItemService.applyBatch(adds(loaded, chunk));
+				loaded += chunk;
+			}
+
+			assertThat(inventoryItemService.getExpiringSoon(group.getId(), 7, 0, 50)).isNotEmpty();
+			report(size, "group expiring", () -> inventoryItemService.getExpiringSoon(group.getId(), 7, 0, 50));
+			report(size, "group expired", () -> inventoryItemService.getExpired(group.getId(), 0, 50));
+			report(size, "user expiring", () -> inventoryItemService.getExpiringSoon(null, 7, 0, 50));
+			report(size, "user expired", () -> inventoryItemService.getExpired(null, 0, 50));
+		}
+	}
+
+	private void report(int size, String name, Runnable query) {
+		System.out.printf("items=%-7d %-15s %s%n", size, name, TestSupport.measure(ROUNDS, i -> query.run()));
+	}
+
+	// Expiry dates spread over roughly -1 to +3 years, so only a small slice
+	// is expiring soon or recently expired
+	private List<ItemOperation> adds(int from, int count) {
+		List<ItemOperation> ops = new ArrayList<>(count);
+		for (int i = from; i < from + count; i++) {
+			ops.add(new ItemOperation(ItemOperation.Type.ADD, null, group.getId(), "Food", "Item " + i, "Food", 1,
+					LocalDate.now().plusDays((i * 37L) % 1460 - 365), null, null));
+		}
+		return ops;
+	}
+}
@@ -0,0 +1,96 @@
+package com.filmasticpg.premzone.item;
+
+import com.filmasticpg.premzone.TestSupport;
+import com.filmasticpg.premzone.group.InventoryGroup;
+import com.filmasticpg.premzone.group.InventoryGroupService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Batch operations that would leave an item without a positive quantity get
+ * an error of their own; the rest of the batch is still applied.
+ */
+@SpringBootTest
+class InventoryItemBatchTests {
+
+	private static final String USER = "batch-test-user";
+
+	@Autowired
+	private InventoryGroupService inventoryGroupService;
+
+	@Autowired
+	private InventoryItemService inventoryItemService;
+
+	@Autowired
+	private InventoryItemRepository inventoryItemRepository;
+
+	private InventoryGroup group;
+
+	@BeforeEach
+	void setUp() {
+		TestSupport.authenticate(USER);
+		group = inventoryGroupService.createGroup("Batch Test");
+	}
+
+	@AfterEach
+	void cleanUp() {
+		TestSupport.deleteGroups(inventoryGroupService, USER, Collections.singletonList(group));
+	}
+
+	@Test
+	void nonPositiveQuantitiesAreRejectedPerOperation() {
+		Long existing = inventoryItemService.applyBatch(List.of(add("Eggs", 6))).get(0).id();
+
+		List<ItemOperationResult> results = inventoryItemService.applyBatch(List.of(
+				add("Rice", 0),
+				add("Beans", -2),
+				add("Flour", null),
+				add("Pasta", 3),
+				update(existing, 0),
+				update(existing, -1)), Set.of(group.getId()), true);
+
+		assertThat(results).extracting(ItemOperationResult::error).containsExactly(
+				"Quantity must be positive",
+				"Quantity must be positive",
+				"Quantity must be positive",
+				null,
+				"Quantity must be positive",
+				"Quantity must be positive");
+		assertThat(names()).containsExactlyInAnyOrder("Eggs", "Pasta");
+		assertThat(inventoryItemRepository.findById(existing).orElseThrow().getQuantity()).isEqualTo(6);
+	}
+
+	@Test
+	void strictBatchFailsWhole() {
+		assertThatThrownBy(() -> inventoryItemService.applyBatch(List.of(add("Pasta", 3), add("Rice", 0))))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Quantity must be positive");
+
+		assertThat(names()).isEmpty();
+	}
+
+	private List<String> names() {
+		return inventoryItemService.getItemsByGroup(group.getId(), ItemSort.NAME, false, null, 50).items().stream()
+				.map(ItemListRow::name)
+				.toList();
+	}
+
+	private ItemOperation add(String name, Integer quantity) {
+		return new ItemOperation(ItemOperation.Type.ADD, null, group.getId(), "Pantry", name, "Pantry", quantity,
+				null, null, null);
+	}
+
+	private static ItemOperation update(Long id, Integer quantity) {
+		return new ItemOperation(ItemOperation.Type.UPDATE, id, null, null, null, null, quantity, null, null, null);
+	}
+}
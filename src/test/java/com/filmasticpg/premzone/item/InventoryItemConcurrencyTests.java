@@ -0,0 +1,173 @@
+package com.filmasticpg.premzone.item;
+
+import com.filmasticpg.premzone.TestSupport;
+import com.filmasticpg.premzone.group.InventoryGroup;
+import com.filmasticpg.premzone.group.InventoryGroupService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Concurrent reduces of the same item must all be applied: with the old
+ * read-modify-write, two threads reading the same quantity lost one decrement.
+ * An update carrying the version the client read must not overwrite a newer one.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class InventoryItemConcurrencyTests {
+
+	private static final String USER = "reduce-test-user";
+
+	private static final int THREADS = 16;
+	private static final int REDUCES_PER_THREAD = 25;
+
+	@Autowired
+	private InventoryGroupService inventoryGroupService;
+
+	@Autowired
+	private InventoryItemService inventoryItemService;
+
+	@Autowired
+	private InventoryItemRepository inventoryItemRepository;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	private InventoryGroup group;
+
+	@BeforeEach
+	void setUp() {
+		TestSupport.authenticate(USER);
+		group = inventoryGroupService.createGroup("Reduce Test");
+	}
+
+	@AfterEach
+	void cleanUp() {
+		TestSupport.deleteGroups(inventoryGroupService, USER, Collections.singletonList(group));
+	}
+
+	@Test
+	void concurrentReducesAreNotLost() throws Exception {
+		int total = THREADS * REDUCES_PER_THREAD;
+		Long id = addItem(total * 2);
+
+		runConcurrently(() -> {
+			for (int i = 0; i < REDUCES_PER_THREAD; i++) {
+				inventoryItemService.reduceItemQuantity(id, 1);
+			}
+		});
+
+		InventoryItem item = inventoryItemRepository.findById(id).orElseThrow();
+		assertThat(item.getQuantity()).isEqualTo(total);
+		assertThat(item.getVersion()).isEqualTo(total);
+	}
+
+	@Test
+	void itemIsDeletedExactlyWhenItReachesZero() throws Exception {
+		int total = THREADS * REDUCES_PER_THREAD;
+		Long id = addItem(total);
+
+		runConcurrently(() -> {
+			for (int i = 0; i < REDUCES_PER_THREAD; i++) {
+				inventoryItemService.reduceItemQuantity(id, 1);
+			}
+		});
+
+		assertThat(inventoryItemRepository.findById(id)).isEmpty();
+	}
+
+	@Test
+	void updateWithStaleVersionIsRejected() {
+		Long id = addItem(3);
+		Long read = inventoryItemRepository.findById(id).orElseThrow().getVersion();
+
+		inventoryItemService.updateItem(id, eggs(2, read), "Dairy");
+		assertThatThrownBy(() -> inventoryItemService.updateItem(id, eggs(5, read), "Dairy"))
+				.isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+		InventoryItem item = inventoryItemRepository.findById(id).orElseThrow();
+		assertThat(item.getQuantity()).isEqualTo(2);
+		assertThat(item.getVersion()).isEqualTo(read + 1);
+	}
+
+	@Test
+	void editWithTheListedVersionGetsAConflictOnceStale() throws Exception {
+		Long id = addItem(3);
+		String listing = mockMvc.perform(get("/api/v1/items/group/{groupId}", group.getId())
+				.with(TestSupport.jwtUser(USER)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		Number listed = JsonPath.read(listing, "$.items[0].version");
+		String ifMatch = "\"" + listed + "\"";
+
+		mockMvc.perform(edit(id, 2, ifMatch)).andExpect(status().isOk());
+		mockMvc.perform(edit(id, 5, ifMatch)).andExpect(status().isConflict());
+
+		assertThat(inventoryItemRepository.findById(id).orElseThrow().getQuantity()).isEqualTo(2);
+	}
+
+	private static MockHttpServletRequestBuilder edit(Long id, int quantity, String ifMatch) {
+		return put("/api/v1/items/{id}", id)
+				.with(TestSupport.jwtUser(USER))
+				.header(HttpHeaders.IF_MATCH, ifMatch)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("""
+						{"name": "Eggs", "category": "Dairy", "quantity": %d, "type": "Food"}
+						""".formatted(quantity));
+	}
+
+	private Long addItem(int quantity) {
+		return inventoryItemService.addItem(group.getId(), eggs(quantity, null), "Dairy").getId();
+	}
+
+	private static FoodItem eggs(int quantity, Long version) {
+		FoodItem item = new FoodItem();
+		item.setName("Eggs");
+		item.setQuantity(quantity);
+		item.setVersion(version);
+		return item;
+	}
+
+	private void runConcurrently(Runnable task) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			futures.add(pool.submit(() -> {
+				start.await();
+				task.run();
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			// Fails the test if any reduce threw
+			future.get(30, TimeUnit.SECONDS);
+		}
+		pool.shutdown();
+	}
+}
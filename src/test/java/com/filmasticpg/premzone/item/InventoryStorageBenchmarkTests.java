@@ -0,0 +1,107 @@
+package com.filmasticpg.premzone.item;
+
+import com.filmasticpg.premzone.TestSupport;
+import com.filmasticpg.premzone.group.InventoryGroup;
+import com.filmasticpg.premzone.group.InventoryGroupService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the JOINED and SINGLE_TABLE item layouts on list, search, insert
+ * and update. Not part of the normal build; run once per layout against the
+ * same database and compare the printed numbers:
+ *
+ * <pre>
+ * mvn test -Dtest=InventoryStorageBenchmarkTests -Dpremzone.benchmark=true
+ * mvn test -Dtest=InventoryStorageBenchmarkTests -Dpremzone.benchmark=true -Dspring.profiles.active=single-table
+ * </pre>
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "premzone.benchmark", matches = "true")
+class InventoryStorageBenchmarkTests {
+
+	private static final String USER = "storage-benchmark-user";
+	private static final int ITEMS = 2000;
+	private static final int ROUNDS = 200;
+
+	@Autowired
+	private InventoryGroupService inventoryGroupService;
+
+	@Autowired
+	private InventoryItemService inventoryItemService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Value("${premzone.items.storage:joined}")
+	private String storage;
+
+	private InventoryGroup group;
+
+	@AfterEach
+	void cleanUp() {
+		TestSupport.deleteGroups(inventoryGroupService, USER, Collections.singletonList(group));
+	}
+
+	@Test
+	void compareLayouts() {
+		TestSupport.authenticate(USER);
+		group = inventoryGroupService.createGroup("Storage Benchmark");
+		Statistics stats = TestSupport.statistics(entityManagerFactory);
+
+		List<Long> ids = new ArrayList<>();
+		report("insert", stats, ITEMS, i -> ids.add(inventoryItemService.addItem(group.getId(), newItem(i),
+				i % 3 == 0 ? "Dairy" : "Snacks").getId()));
+		assertThat(ids).hasSize(ITEMS);
+
+		report("update", stats, ROUNDS, i -> inventoryItemService.updateItem(ids.get(i), newItem(i + ITEMS),
+				"Snacks"));
+
+		report("list", stats, ROUNDS, i -> {
+			String cursor = null;
+			do {
+				cursor = inventoryItemService.getItemsByGroup(group.getId(), ItemSort.EXPIRY, false, cursor, 200)
+						.nextCursor();
+			} while (cursor != null);
+		});
+
+		report("search", stats, ROUNDS, i -> inventoryItemService.search("item " + (i % 50), 0, 20));
+	}
+
+	private void report(String name, Statistics stats, int rounds, IntConsumer op) {
+		stats.clear();
+		TestSupport.Latency latency = TestSupport.measure(rounds, op);
+		System.out.printf("[%s] %-6s n=%d %s statements/op=%.1f%n", storage, name, rounds, latency,
+				(double) stats.getPrepareStatementCount() / rounds);
+	}
+
+	private static InventoryItem newItem(int i) {
+		InventoryItem item;
+		if (i % 2 == 0) {
+			FoodItem food = new FoodItem();
+			food.setExpiryDate(LocalDate.now().plusDays(i % 30));
+			item = food;
+		} else {
+			SupplyItem supply = new SupplyItem();
+			supply.setCondition(ItemCondition.values()[i % ItemCondition.values().length]);
+			item = supply;
+		}
+		item.setName("Item " + i);
+		item.setQuantity(1 + i % 5);
+		return item;
+	}
+}
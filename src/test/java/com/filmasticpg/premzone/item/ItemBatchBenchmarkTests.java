@@ -0,0 +1,100 @@
+package com.filmasticpg.premzone.item;
+
+import com.filmasticpg.premzone.TestSupport;
+import com.filmasticpg.premzone.group.InventoryGroup;
+import com.filmasticpg.premzone.group.InventoryGroupService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Per-item cost of adding a grocery haul through the batch API compared with
+ * one addItem call per item. Not part of the normal build:
+ *
+ * <pre>
+ * mvn test -Dtest=ItemBatchBenchmarkTests -Dpremzone.benchmark=true
+ * </pre>
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "premzone.benchmark", matches = "true")
+class ItemBatchBenchmarkTests {
+
+	private static final String USER = "batch-benchmark-user";
+	private static final int SINGLES = 100;
+
+	@Autowired
+	private InventoryGroupService inventoryGroupService;
+
+	@Autowired
+	private InventoryItemService inventoryItemService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private InventoryGroup group;
+
+	@AfterEach
+	void cleanUp() {
+		TestSupport.deleteGroups(inventoryGroupService, USER, Collections.singletonList(group));
+	}
+
+	@Test
+	void perItemCostByBatchSize() {
+		TestSupport.authenticate(USER);
+		group = inventoryGroupService.createGroup("Batch Benchmark");
+		Statistics stats = TestSupport.statistics(entityManagerFactory);
+
+		// Warm-up so the first measurement doesn't pay for class loading and pool start
+		inventoryItemService.applyBatch(adds(100));
+
+		long largeBatchStatements = 0;
+		for (int size : new int[] { 1, 100, 10_000 }) {
+			List<ItemOperation> ops = adds(size);
+			stats.clear();
+			long start = System.nanoTime();
+			List<ItemOperationResult> results = inventoryItemService.applyBatch(ops);
+			long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+			assertThat(results).hasSize(size);
+			largeBatchStatements = stats.getPrepareStatementCount();
+			System.out.printf("batch  size=%-6d total=%dms per-item=%dus statements=%d%n", size, micros / 1000,
+					micros / size, largeBatchStatements);
+		}
+
+		stats.clear();
+		long start = System.nanoTime();
+		for (ItemOperation op : adds(SINGLES)) {
+			inventoryItemService.addItem(group.getId(), op.toNewItem(), op.category());
+		}
+		long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+		long singleStatements = stats.getPrepareStatementCount();
+		System.out.printf("single size=%-6d total=%dms per-item=%dus statements=%d%n", SINGLES, micros / 1000,
+				micros / SINGLES, singleStatements);
+
+		// One add costs at least one statement per table of its class; a batch of
+		// 10,000 shares JDBC batches and sequence fetches across items
+		assertThat(singleStatements).isGreaterThanOrEqualTo(SINGLES);
+		assertThat(largeBatchStatements).isLessThan(10_000 / 5);
+	}
+
+	private List<ItemOperation> adds(int count) {
+		List<ItemOperation> ops = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			ops.add(new ItemOperation(ItemOperation.Type.ADD, null, group.getId(), i % 2 == 0 ? "Food" : "Pantry",
+					"Groceries " + i, i % 3 == 0 ? "Produce" : "Snacks", 1 + i % 4,
+					LocalDate.now().plusDays(i % 20), null, null));
+		}
+		return ops;
+	}
+}
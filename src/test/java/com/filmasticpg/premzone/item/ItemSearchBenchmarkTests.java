@@ -0,0 +1,99 @@
+package com.filmasticpg.premzone.item;
+
+import com.filmasticpg.premzone.TestSupport;
+import com.filmasticpg.premzone.group.InventoryGroup;
+import com.filmasticpg.premzone.group.InventoryGroupService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Item search over 1M items (100 groups of 10,000), once for a user who can
+ * see all of them and once for a user in two of the groups, which is the
+ * case the 50ms p99 target is for. Seeding and cleanup take several minutes.
+ * Not part of the normal build:
+ *
+ * <pre>
+ * mvn test -Dtest=ItemSearchBenchmarkTests -Dpremzone.benchmark=true
+ * </pre>
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "premzone.benchmark", matches = "true")
+class ItemSearchBenchmarkTests {
+
+	private static final String OWNER = "search-benchmark-owner";
+	private static final String READER = "search-benchmark-reader";
+	private static final int GROUPS = 100;
+	private static final int ITEMS_PER_GROUP = 10_000;
+	private static final int ROUNDS = 500;
+	private static final long P99_TARGET_MICROS = 50_000;
+
+	private static final String[] WORDS = { "milk", "eggs", "chicken", "tomato", "rice", "pasta", "bread",
+			"cheese", "yogurt", "apple", "banana", "spinach", "onion", "garlic", "butter", "flour", "sugar",
+			"coffee", "tea", "beans", "lentils", "oats", "honey", "salmon", "tofu", "pepper", "carrot", "potato",
+			"lemon", "ginger", "batteries", "bandages", "ibuprofen", "charger", "tape", "soap", "sponges",
+			"detergent", "foil", "napkins" };
+	private static final String[] QUERIES = { "milk", "chick", "tomatoe", "rice 12", "bandage", "xyz" };
+
+	@Autowired
+	private InventoryGroupService inventoryGroupService;
+
+	@Autowired
+	private InventoryItemService inventoryItemService;
+
+	private final List<InventoryGroup> groups = new ArrayList<>();
+
+	@AfterEach
+	void cleanUp() {
+		TestSupport.deleteGroups(inventoryGroupService, OWNER, groups);
+	}
+
+	@Test
+	void searchStaysUnderTargetAtOneMillionItems() {
+		TestSupport.authenticate(OWNER);
+		for (int g = 0; g < GROUPS; g++) {
+			InventoryGroup group = inventoryGroupService.createGroup("Search " + g);
+			groups.add(group);
+			inventoryItemService.applyBatch(adds(group.getId(), g));
+		}
+		assertThat(inventoryItemService.search("milk", 0, 20)).isNotEmpty();
+		report("owner, 1M in scope");
+
+		TestSupport.authenticate(READER);
+		inventoryGroupService.joinGroup(groups.get(0).getJoinCode());
+		inventoryGroupService.joinGroup(groups.get(GROUPS / 2).getJoinCode());
+		assertThat(inventoryItemService.search("milk", 0, 20)).isNotEmpty();
+		TestSupport.Latency reader = report("reader, 2 groups");
+
+		assertThat(reader.p99()).isLessThan(P99_TARGET_MICROS);
+	}
+
+	private TestSupport.Latency report(String name) {
+		// Warm-up so plans and pages are cached as on a running server
+		TestSupport.measure(50, i -> inventoryItemService.search(QUERIES[i % QUERIES.length], 0, 20));
+		TestSupport.Latency latency = TestSupport.measure(ROUNDS,
+				i -> inventoryItemService.search(QUERIES[i % QUERIES.length], 0, 20));
+		System.out.printf("search %-20s %s%n", name, latency);
+		return latency;
+	}
+
+	// Names like "chicken 417", so each word matches 1 in 40 items
+	private static List<ItemOperation> adds(Long groupId, int g) {
+		List<ItemOperation> ops = new ArrayList<>(ITEMS_PER_GROUP);
+		for (int i = 0; i < ITEMS_PER_GROUP; i++) {
+			int n = g * ITEMS_PER_GROUP + i;
+			ops.add(new ItemOperation(ItemOperation.Type.ADD, null, groupId, "Food",
+					WORDS[n % WORDS.length] + " " + (n / WORDS.length) % 1000, n % 3 == 0 ? "Produce" : "Staples", 1,
+					LocalDate.now().plusDays(n % 60), null, null));
+		}
+		return ops;
+	}
+}
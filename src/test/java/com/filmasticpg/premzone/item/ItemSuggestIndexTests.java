@@ -0,0 +1,148 @@
+package com.filmasticpg.premzone.item;
+
+import com.filmasticpg.premzone.group.GroupVersionService;
+import com.filmasticpg.premzone.group.InventoryGroupRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ItemSuggestIndexTests {
+
+	private static final Long GROUP = 1L;
+
+	private final InventoryItemRepository repository = mock(InventoryItemRepository.class);
+	private final GroupVersionService versions = new GroupVersionService(mock(InventoryGroupRepository.class),
+			event -> {
+			});
+	private final ItemSuggestIndex index = new ItemSuggestIndex(repository, versions, new SimpleMeterRegistry(),
+			1000, Duration.ofMinutes(30));
+
+	private final List<ItemSuggestion> stored = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		stored.add(new ItemSuggestion(1L, "Milk", 2));
+		stored.add(new ItemSuggestion(2L, "Oat Milk", 1));
+		stored.add(new ItemSuggestion(3L, "Mild Salsa", 1));
+		stored.add(new ItemSuggestion(4L, "Mint", 3));
+		stored.add(new ItemSuggestion(5L, "Apple", 6));
+		stored.add(new ItemSuggestion(6L, "Zucchini", 1));
+		when(repository.findSuggestionsByGroupId(GROUP)).thenAnswer(invocation -> List.copyOf(stored));
+	}
+
+	@AfterEach
+	void clearSynchronization() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void matchesOnlyKeysStartingWithThePrefix() {
+		assertThat(names("mil", 10)).containsExactly("Milk", "Mild Salsa", "Oat Milk");
+		assertThat(names("milk", 10)).containsExactly("Milk", "Oat Milk");
+		assertThat(names("mi", 10)).containsExactly("Milk", "Mint", "Mild Salsa", "Oat Milk");
+		assertThat(names("sal", 10)).containsExactly("Mild Salsa");
+	}
+
+	@Test
+	void handlesPrefixesAtAndPastTheEndsOfTheIndex() {
+		assertThat(names("a", 10)).containsExactly("Apple");
+		assertThat(names("zucchini", 10)).containsExactly("Zucchini");
+		assertThat(names("zz", 10)).isEmpty();
+		assertThat(names("0", 10)).isEmpty();
+		assertThat(names("", 10)).isEmpty();
+		assertThat(names("   ", 10)).isEmpty();
+	}
+
+	@Test
+	void foldsCaseAndWhitespace() {
+		assertThat(names("MIL", 10)).containsExactly("Milk", "Mild Salsa", "Oat Milk");
+		assertThat(names("  oat   m", 10)).containsExactly("Oat Milk");
+	}
+
+	@Test
+	void appliesLimitAfterRankingAndListsEachItemOnce() {
+		stored.add(new ItemSuggestion(7L, "Milk and Milk", 1));
+
+		assertThat(names("milk", 2)).containsExactly("Milk", "Milk and Milk");
+		assertThat(names("milk", 10)).containsExactly("Milk", "Milk and Milk", "Oat Milk");
+	}
+
+	@Test
+	void patchesIndexAfterCommitWithoutReloading() {
+		names("mil", 10);
+
+		versions.markChanged(GROUP);
+		index.itemSaved(GROUP, item(8L, "Millet", 4));
+		versions.markChanged(GROUP);
+		index.itemRemoved(GROUP, 2L);
+		versions.markChanged(GROUP);
+		index.itemQuantityReduced(GROUP, 1L, 1);
+
+		assertThat(index.suggest(GROUP, "mil", 10)).containsExactly(
+				new ItemSuggestion(1L, "Milk", 1),
+				new ItemSuggestion(8L, "Millet", 4),
+				new ItemSuggestion(3L, "Mild Salsa", 1));
+		verify(repository, times(1)).findSuggestionsByGroupId(GROUP);
+	}
+
+	@Test
+	void rolledBackChangeLeavesIndexAsItWas() {
+		names("mil", 10);
+
+		TransactionSynchronizationManager.initSynchronization();
+		versions.markChanged(GROUP);
+		index.itemSaved(GROUP, item(8L, "Millet", 4));
+		index.itemRemoved(GROUP, 2L);
+		List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+		TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations,
+				TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		assertThat(versions.currentVersion(GROUP)).isZero();
+		assertThat(names("mil", 10)).containsExactly("Milk", "Mild Salsa", "Oat Milk");
+		verify(repository, times(1)).findSuggestionsByGroupId(GROUP);
+	}
+
+	@Test
+	void patchOnTopOfAMissedChangeDropsTheIndex() {
+		names("mil", 10);
+
+		// A change whose patch never reached this index, then one that did
+		stored.add(new ItemSuggestion(9L, "Mille-feuille", 1));
+		versions.markChanged(GROUP);
+		versions.markChanged(GROUP);
+		index.itemRemoved(GROUP, 2L);
+		stored.removeIf(s -> s.id() == 2L);
+
+		assertThat(names("mil", 10)).containsExactly("Milk", "Mild Salsa", "Mille-feuille");
+		verify(repository, times(2)).findSuggestionsByGroupId(GROUP);
+	}
+
+	private List<String> names(String prefix, int limit) {
+		return index.suggest(GROUP, prefix, limit).stream().map(ItemSuggestion::name).toList();
+	}
+
+	private static InventoryItem item(Long id, String name, int quantity) {
+		InventoryItem item = new FoodItem();
+		item.setId(id);
+		item.setName(name);
+		item.setQuantity(quantity);
+		return item;
+	}
+}
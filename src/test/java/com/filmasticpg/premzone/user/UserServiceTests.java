@@ -0,0 +1,58 @@
+package com.filmasticpg.premzone.user;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.filmasticpg.premzone.TestSupport;
+import com.filmasticpg.premzone.config.UserContext;
+import com.filmasticpg.premzone.group.InventoryGroup;
+import com.filmasticpg.premzone.group.InventoryGroupService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Users resolved from the identity cache end up as a group's creator and
+ * members, so they must serialize like a user loaded the slow way.
+ */
+@SpringBootTest
+class UserServiceTests {
+
+	private static final String USER = "cached-user-test";
+
+	@Autowired
+	private UserContext userContext;
+
+	@Autowired
+	private InventoryGroupService inventoryGroupService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private InventoryGroup group;
+
+	@BeforeEach
+	void setUp() {
+		TestSupport.authenticate(USER);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		TestSupport.deleteGroups(inventoryGroupService, USER, Collections.singletonList(group));
+	}
+
+	@Test
+	void groupCreatedByCachedUserSerializes() throws Exception {
+		// First call syncs and fills the cache, the group is created on the fast path
+		userContext.getCurrentUser();
+		group = inventoryGroupService.createGroup("Cached Creator");
+
+		String json = objectMapper.writeValueAsString(group);
+
+		assertThat(json).contains("cached-user-test@example.com").doesNotContain("hibernateLazyInitializer");
+	}
+}